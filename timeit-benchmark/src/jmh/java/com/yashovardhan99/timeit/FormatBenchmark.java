@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Formatting of the displayed time, for each of the SS.ss, MM:SS.ss and H:MM:SS branches.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    @Param({"5430", "754320", "37230000"})
+    public long time;
+
+    private final TimeFormatter formatter = new TimeFormatter();
+
+    @Benchmark
+    public String formattedTime() {
+        return Stopwatch.getFormattedTime(time);
+    }
+
+    @Benchmark
+    public char[] formatter() {
+        return formatter.format(time).getBuffer();
+    }
+}
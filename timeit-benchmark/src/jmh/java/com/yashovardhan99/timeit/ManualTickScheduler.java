@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * A tick scheduler which is only dispatched when a benchmark calls {@link #tick()}, so that ticks can be measured on the benchmark thread.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+class ManualTickScheduler extends TickScheduler {
+
+    ManualTickScheduler(TimeSource timeSource) {
+        super(timeSource);
+    }
+
+    @Override
+    protected void requestDispatch(long delay) {
+        // dispatched by the benchmark instead
+    }
+
+    void tick() {
+        dispatch();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Recording splits on a stopwatch which already holds a history of the given size. The history keeps growing during the measurement.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Thread)
+public class SplitBenchmark {
+
+    @Param({"0", "1000", "100000"})
+    public int history;
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private Stopwatch stopwatch;
+    private long now;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stopwatch = new Stopwatch(clock, new ManualTickScheduler(clock));
+        stopwatch.start();
+        for (int i = 0; i < history; i++)
+            split();
+    }
+
+    @Benchmark
+    public Stopwatch split() {
+        clock.setNanoTime(now += 1000);
+        stopwatch.split();
+        return stopwatch;
+    }
+}
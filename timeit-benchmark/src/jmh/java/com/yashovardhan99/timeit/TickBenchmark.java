@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A full tick of the scheduler : updating the elapsed time of every running stopwatch, calling its listener and formatting its display.
+ * With 0 listeners a single stopwatch only has a display, which is then updated by a timeout when its text changes instead of by ticks. Otherwise every stopwatch has a listener.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Thread)
+public class TickBenchmark {
+
+    @Param({"0", "1", "64"})
+    public int listeners;
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final ManualTickScheduler scheduler = new ManualTickScheduler(clock);
+    private long now;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < Math.max(1, listeners); i++) {
+            Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+            stopwatch.setDisplay((text, start, length) -> blackhole.consume(text));
+            if (i < listeners)
+                stopwatch.setOnTickListener(blackhole::consume);
+            stopwatch.start();
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        clock.setNanoTime(now += 100000000);
+        scheduler.tick();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A tick of the scheduler with many running timers, including checking for and completing expired timers.
+ * Timers have staggered durations between 0.1 and 5 seconds and are restarted as soon as they complete.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Thread)
+public class TimerBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int timers;
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final ManualTickScheduler scheduler = new ManualTickScheduler(clock);
+    private Timer[] running;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        running = new Timer[timers];
+        for (int i = 0; i < timers; i++) {
+            running[i] = new Timer((i % 50 + 1) * 100, clock, scheduler);
+            running[i].start();
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        clock.setNanoTime(now += 100000000);
+        scheduler.tick();
+        for (Timer timer : running) {
+            if (!timer.isStarted())
+                timer.start();
+        }
+    }
+}
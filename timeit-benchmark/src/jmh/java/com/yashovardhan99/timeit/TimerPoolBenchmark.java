@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The same workload as {@link TimerBenchmark} with the timers kept in a {@link TimerPool}.
+ * Timers are restarted from the completion listener as soon as they complete.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Thread)
+public class TimerPoolBenchmark {
+
+    @Param({"1", "64", "1024", "16384"})
+    public int timers;
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final ManualTickScheduler scheduler = new ManualTickScheduler(clock);
+    private long now;
+
+    @Setup
+    public void setUp() {
+        TimerPool pool = new TimerPool(scheduler);
+        pool.setOnCompleteListener(TimerPool::start);
+        int[] handles = new int[timers];
+        for (int i = 0; i < timers; i++)
+            handles[i] = pool.create((i % 50 + 1) * 100);
+        pool.startAll(handles);
+    }
+
+    @Benchmark
+    public void tick() {
+        clock.setNanoTime(now += 100000000);
+        scheduler.tick();
+    }
+}
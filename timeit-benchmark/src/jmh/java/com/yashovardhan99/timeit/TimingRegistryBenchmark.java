@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Records into one timing from every available thread, against a timing guarded by a lock.
+ * Run with a thread count of 1, 2, 4... (jmh -t) to see how recording scales with the number of cores.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @since 2.0
+ */
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+public class TimingRegistryBenchmark {
+
+    private final TimingRegistry.Timing timing = new TimingRegistry().get("benchmark");
+    private final Object lock = new Object();
+    private long count, total, min = Long.MAX_VALUE, max;
+
+    @Benchmark
+    public void recordStriped() {
+        timing.record(1000);
+    }
+
+    @Benchmark
+    public void recordLocked() {
+        synchronized (lock) {
+            count++;
+            total += 1000;
+            min = Math.min(min, 1000);
+            max = Math.max(max, 1000);
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A thread safe stopwatch which can be controlled and read from any number of threads at once.
+ * <p>
+ * The whole state of the stopwatch is packed into a single atomically updated word : the status in the top two bits and, depending on the status, either the elapsed time or the time at which the stopwatch would have been started had it never been paused.
+ * Every transition (start, pause, resume, stop) is a single compare-and-set on that word, and the elapsed time is computed from the clock whenever it is read, so the tick thread never has to write to it.
+ * Splits are appended to a lock-free linked list which any number of threads may append to at once. Laps are always computed against the split they were linked after, so splits recorded concurrently stay in order and their laps always add up.
+ * Stopping seals the list before changing the status, so a split racing with a stop is either linked before it or fails, and is never linked to a list which has been stopped or replaced by a new start.
+ * <p>
+ * Use {@link #snapshot()} to read a consistent view of the elapsed time, lap time and number of splits.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch
+ * @since 2.0
+ */
+public class ConcurrentStopwatch {
+
+    private static final int STATUS_SHIFT = 62;
+    private static final long VALUE_MASK = (1L << STATUS_SHIFT) - 1;
+    private static final long STOPPED = 0;
+    /**
+     * Transient status while splits are being cleared for a new start.
+     */
+    private static final long STARTING = 1;
+    private static final long RUNNING = 2;
+    private static final long PAUSED = 3;
+    /**
+     * Linked after the last split by {@link #stop()}, so that no split can be linked after it.
+     */
+    private static final Node SEALED = new Node(0, 0, -1);
+
+    private final TimeSource timeSource;
+    /**
+     * Reading of the time source when the stopwatch was created. All packed times are relative to it so that they fit in 62 bits.
+     */
+    private final long origin;
+    private final AtomicLong state;
+    private final AtomicReference<Node> tail;
+    private volatile Node head;
+    private volatile long start;
+    private volatile long clockDelay;
+    private volatile OnTickListener onTickListener;
+    private volatile TimeDisplay display;
+    private final TickScheduler scheduler;
+    private final DisplayBinding binding = new DisplayBinding();
+    private final TickScheduler.Registration registration = new TickScheduler.Registration(this::run);
+
+    /**
+     * Creates a stopwatch which measures time with {@link TimeSource#SYSTEM} and ticks on the {@link ExecutorTickScheduler#getDefault() default scheduler}.
+     *
+     * @since 2.0
+     */
+    public ConcurrentStopwatch() {
+        this(TimeSource.SYSTEM, ExecutorTickScheduler.getDefault());
+    }
+
+    /**
+     * Creates a stopwatch which measures time with the given time source and ticks on the given scheduler.
+     *
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @param scheduler  the scheduler which drives the clock of this stopwatch
+     * @since 2.0
+     */
+    public ConcurrentStopwatch(TimeSource timeSource, TickScheduler scheduler) {
+        this.timeSource = timeSource;
+        this.scheduler = scheduler;
+        origin = timeSource.nanoTime();
+        state = new AtomicLong(pack(STOPPED, 0));
+        head = new Node(0, 0, -1);
+        tail = new AtomicReference<>(head);
+        start = System.currentTimeMillis();
+        clockDelay = 100;
+        onTickListener = null;
+        display = null;
+    }
+
+    private static long pack(long status, long value) {
+        return status << STATUS_SHIFT | value;
+    }
+
+    private static long status(long state) {
+        return state >>> STATUS_SHIFT;
+    }
+
+    /**
+     * Computes the elapsed time held by a state word.
+     *
+     * @param state a state word
+     * @param now   the current time relative to the origin
+     * @return the elapsed time in nanoseconds
+     */
+    private static long elapsed(long state, long now) {
+        long value = state & VALUE_MASK;
+        return status(state) == RUNNING ? now - value : value;
+    }
+
+    private long now() {
+        return timeSource.nanoTime() - origin;
+    }
+
+    /**
+     * Returns true if the stopwatch has started
+     *
+     * @return true if the stopwatch has been started by calling start(). False otherwise
+     * @since 2.0
+     */
+    public boolean isStarted() {
+        long status = status(state.get());
+        return status == RUNNING || status == PAUSED;
+    }
+
+    /**
+     * Returns true if the stopwatch is paused
+     *
+     * @return true if the stopwatch is paused. False otherwise
+     * @since 2.0
+     */
+    public boolean isPaused() {
+        return status(state.get()) == PAUSED;
+    }
+
+    /**
+     * Gets the current elapsed time the stopwatch has been running for in milliseconds
+     *
+     * @return the time in milliseconds the stopwatch has been running for.
+     * @since 2.0
+     */
+    public long getElapsedTime() {
+        return getElapsedTimeNanos() / 1000000;
+    }
+
+    /**
+     * Gets the current elapsed time the stopwatch has been running for in nanoseconds
+     *
+     * @return the time in nanoseconds the stopwatch has been running for.
+     * @since 2.0
+     */
+    public long getElapsedTimeNanos() {
+        long state = this.state.get();
+        return status(state) == STARTING ? 0 : elapsed(state, now());
+    }
+
+    /**
+     * Returns the clock time (in milliseconds) when the stopwatch was started.
+     * This is wall clock time as returned by {@link System#currentTimeMillis()} and is not used to measure elapsed time.
+     *
+     * @return time when the stopwatch was started in milliseconds.
+     * @since 2.0
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns a consistent view of the stopwatch at the current time.
+     * The elapsed time, lap time and split count of the snapshot all belong to the same instant, even while other threads are recording splits or pausing the stopwatch.
+     *
+     * @return a snapshot of this stopwatch
+     * @since 2.0
+     */
+    public Snapshot snapshot() {
+        for (; ; ) {
+            long state = this.state.get();
+            Node last = lastNode();
+            long now = now();
+            Node next = last.next;
+            if (this.state.get() != state || (next != null && next != SEALED) || tail.get() != last)
+                continue;
+            long status = status(state);
+            if (status == STARTING)
+                return new Snapshot(false, false, 0, 0, 0);
+            long elapsed = elapsed(state, now);
+            return new Snapshot(status != STOPPED, status == PAUSED, elapsed, Math.max(0, elapsed - last.getSplitTimeNanos()), last.index + 1);
+        }
+    }
+
+    /**
+     * Get a list of all splits that have been created. The list is a copy and is not updated by later splits.
+     *
+     * @return all splits created with split method, in order.
+     * @see Split
+     * @since 2.0
+     */
+    public List<Split> getSplits() {
+        Node last = lastNode();
+        ArrayList<Split> splits = new ArrayList<>(last.index + 1);
+        for (Node node = head.next; node != null && node != SEALED; node = node.next) {
+            splits.add(node);
+            if (node == last)
+                break;
+        }
+        return splits;
+    }
+
+    /**
+     * Returns the currently set clock delay
+     *
+     * @return currently set clock delay in milliseconds (default: 100ms)
+     * @since 2.0
+     */
+    public long getClockDelay() {
+        return clockDelay;
+    }
+
+    /**
+     * Set a custom clock delay to increase/decrease update frequency.
+     *
+     * @param clockDelay clock delay in milliseconds (default : 100ms)
+     * @since 2.0
+     */
+    public void setClockDelay(long clockDelay) {
+        this.clockDelay = clockDelay;
+        updateTicking();
+    }
+
+    /**
+     * Set an OnTickListener to listen for clock changes. It is called on the scheduler's thread.
+     *
+     * @param onTickListener a reference to the interface implementation.
+     * @since 2.0
+     */
+    public void setOnTickListener(OnTickListener onTickListener) {
+        this.onTickListener = onTickListener;
+    }
+
+    /**
+     * Allows you to set a display where the stopwatch time is shown. It is updated on the scheduler's thread whenever the shown text changes.
+     *
+     * @param display the display where you want to show the stopwatch time. Can be null.
+     * @since 2.0
+     */
+    public void setDisplay(TimeDisplay display) {
+        this.display = display;
+    }
+
+    /**
+     * Starts the stopwatch at the current time and clears all splits. Cannot be called again without calling stop() first.
+     *
+     * @throws IllegalStateException if the stopwatch has already been started.
+     * @since 2.0
+     */
+    public void start() {
+        long state = this.state.get();
+        if (status(state) != STOPPED || !this.state.compareAndSet(state, pack(STARTING, 0)))
+            throw new IllegalStateException("Already Started");
+        // splits cannot be recorded while starting, so the list can be replaced safely
+        Node sentinel = new Node(0, 0, -1);
+        head = sentinel;
+        tail.set(sentinel);
+        start = System.currentTimeMillis();
+        this.state.set(pack(RUNNING, now()));
+        updateTicking();
+    }
+
+    /**
+     * Stops the stopwatch. Stopwatch cannot be resumed from current time later.
+     *
+     * @throws IllegalStateException if stopwatch has not been started yet.
+     * @since 2.0
+     */
+    public void stop() {
+        for (; ; ) {
+            long state = this.state.get();
+            long status = status(state);
+            if (status != RUNNING && status != PAUSED)
+                throw new IllegalStateException("Not Started");
+            // sealed before the status changes, so every split linked before the seal is earlier than the stop
+            seal();
+            if (this.state.compareAndSet(state, pack(STOPPED, elapsed(state, now()))))
+                break;
+        }
+        updateTicking();
+    }
+
+    /**
+     * Pauses the stopwatch. Using this allows you to resume the stopwatch from the current state.
+     *
+     * @throws IllegalStateException if stopwatch is already paused or not started yet.
+     * @since 2.0
+     */
+    public void pause() {
+        for (; ; ) {
+            long state = this.state.get();
+            long status = status(state);
+            if (status == PAUSED)
+                throw new IllegalStateException("Already Paused");
+            else if (status != RUNNING)
+                throw new IllegalStateException("Not Started");
+            if (this.state.compareAndSet(state, pack(PAUSED, elapsed(state, now()))))
+                break;
+        }
+        updateTicking();
+    }
+
+    /**
+     * Used to resume the stopwatch from the current time after being paused.
+     *
+     * @throws IllegalStateException if stopwatch is not paused or not started yet.
+     * @since 2.0
+     */
+    public void resume() {
+        for (; ; ) {
+            long state = this.state.get();
+            long status = status(state);
+            if (status == RUNNING)
+                throw new IllegalStateException("Not Paused");
+            else if (status != PAUSED)
+                throw new IllegalStateException("Not Started");
+            if (this.state.compareAndSet(state, pack(RUNNING, now() - (state & VALUE_MASK))))
+                break;
+        }
+        updateTicking();
+    }
+
+    /**
+     * Creates a new split/lap at the current time. Can even be called when stopwatch is paused.
+     * Any number of threads may record splits at the same time without blocking each other.
+     *
+     * @return the split which was recorded
+     * @throws IllegalStateException if stopwatch is not started yet
+     * @since 2.0
+     */
+    public Split split() {
+        for (; ; ) {
+            Node last = lastNode();
+            long state = this.state.get();
+            long status = status(state);
+            if (status != RUNNING && status != PAUSED)
+                throw new IllegalStateException("Not Started");
+            if (last.next == SEALED) {
+                // read from a list which a stop has sealed, and which a start may have replaced since
+                if (tail.get() == last)
+                    throw new IllegalStateException("Not Started");
+                continue;
+            }
+            // the clock is read after the last split was linked, so this split can never be earlier than it
+            long previous = last.getSplitTimeNanos();
+            long elapsed = Math.max(elapsed(state, now()), previous);
+            Node node = new Node(elapsed, elapsed - previous, last.index + 1);
+            if (NEXT.compareAndSet(last, null, node)) {
+                tail.compareAndSet(last, node);
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Finds the last linked split, helping to move the tail forward if another thread has linked a split but not updated the tail yet.
+     * The tail never moves to {@link #SEALED}.
+     */
+    private Node lastNode() {
+        for (; ; ) {
+            Node last = tail.get();
+            Node next = last.next;
+            if (next == null || next == SEALED)
+                return last;
+            tail.compareAndSet(last, next);
+        }
+    }
+
+    /**
+     * Links {@link #SEALED} after the last split, unless a concurrent stop already has.
+     */
+    private void seal() {
+        for (; ; ) {
+            Node last = lastNode();
+            if (last.next == SEALED || NEXT.compareAndSet(last, null, SEALED))
+                return;
+        }
+    }
+
+    /**
+     * Registers with the scheduler while running and unregisters otherwise.
+     * This is serialized on the scheduler so that the registration always matches the latest state, even if transitions race.
+     */
+    private void updateTicking() {
+        synchronized (scheduler) {
+            if (status(state.get()) == RUNNING)
+                scheduler.schedule(registration, clockDelay);
+            else
+                scheduler.cancel(registration);
+        }
+    }
+
+    /**
+     * Called by the scheduler on every tick.
+     */
+    private void run() {
+        long state = this.state.get();
+        if (status(state) != RUNNING) {
+            updateTicking();
+            return;
+        }
+        OnTickListener onTickListener = this.onTickListener;
+        if (onTickListener != null)
+            onTickListener.onTick(this);
+
+        binding.render(display, elapsed(state, now()) / 1000000);
+    }
+
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT = AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+    /**
+     * A split linked into the list of splits.
+     */
+    private static final class Node extends Split {
+        private final int index;
+        volatile Node next;
+
+        Node(long splitTime, long lapTime, int index) {
+            super(splitTime, lapTime);
+            this.index = index;
+            next = null;
+        }
+    }
+
+    /**
+     * An immutable view of a concurrent stopwatch at a single instant.
+     *
+     * @see #snapshot()
+     * @since 2.0
+     */
+    public static final class Snapshot {
+        private final boolean started, paused;
+        private final long elapsedTime, lapTime;
+        private final int splitCount;
+
+        Snapshot(boolean started, boolean paused, long elapsedTime, long lapTime, int splitCount) {
+            this.started = started;
+            this.paused = paused;
+            this.elapsedTime = elapsedTime;
+            this.lapTime = lapTime;
+            this.splitCount = splitCount;
+        }
+
+        /**
+         * @return true if the stopwatch was started at this instant
+         * @since 2.0
+         */
+        public boolean isStarted() {
+            return started;
+        }
+
+        /**
+         * @return true if the stopwatch was paused at this instant
+         * @since 2.0
+         */
+        public boolean isPaused() {
+            return paused;
+        }
+
+        /**
+         * @return the elapsed time in nanoseconds
+         * @since 2.0
+         */
+        public long getElapsedTimeNanos() {
+            return elapsedTime;
+        }
+
+        /**
+         * @return the time in nanoseconds since the last split, or since the start if there are no splits
+         * @since 2.0
+         */
+        public long getLapTimeNanos() {
+            return lapTime;
+        }
+
+        /**
+         * @return the number of splits recorded
+         * @since 2.0
+         */
+        public int getSplitCount() {
+            return splitCount;
+        }
+    }
+
+    /**
+     * Interface to listen for stopwatch tick events every time clock is updated.
+     *
+     * @since 2.0
+     */
+    public interface OnTickListener {
+        /**
+         * Called every time the clock 'ticks', on the scheduler's thread.
+         *
+         * @param stopwatch Reference to the currently calling stopwatch.
+         * @since 2.0
+         */
+        void onTick(ConcurrentStopwatch stopwatch);
+    }
+}
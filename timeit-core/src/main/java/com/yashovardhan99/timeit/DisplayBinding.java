@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * Renders times to a display, skipping every update which would not change a visible digit.
+ * On Android every setText can trigger a layout pass, so with a clock delay shorter than the resolution of the text most ticks would otherwise redraw the same text.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TimeFormatter#getResolution(long)
+ * @since 2.0
+ */
+final class DisplayBinding {
+
+    private final TimeFormatter formatter = new TimeFormatter();
+    private TimeDisplay display;
+    /**
+     * The shown time rounded down to its resolution, -1 if nothing has been shown.
+     */
+    private long shown;
+
+    DisplayBinding() {
+        display = null;
+        shown = -1;
+    }
+
+    /**
+     * Shows a time on a display unless the display already shows the same text.
+     *
+     * @param display the display to show the time on. Can be null.
+     * @param time    the time in milliseconds
+     * @return true if the display was updated
+     */
+    boolean render(TimeDisplay display, long time) {
+        if (display == null)
+            return false;
+        if (time < 0)
+            time = 0;
+        long shown = time - time % TimeFormatter.getResolution(time);
+        if (display == this.display && shown == this.shown)
+            return false;
+        this.display = display;
+        this.shown = shown;
+        formatter.format(time);
+        display.setText(formatter.getBuffer(), 0, formatter.length());
+        return true;
+    }
+
+    /**
+     * Works out when the text shown for a time changes next.
+     *
+     * @param time      the shown time in milliseconds
+     * @param countdown true if the time is counting down, as on a timer
+     * @return the first time in milliseconds which is shown differently, or -1 if a countdown has reached 0
+     */
+    static long nextChange(long time, boolean countdown) {
+        if (time < 0)
+            time = 0;
+        long shown = time - time % TimeFormatter.getResolution(time);
+        if (countdown)
+            return shown - 1;
+        return shown + TimeFormatter.getResolution(time);
+    }
+
+    /**
+     * Forgets the shown text so that the next time is always rendered, for example when the display may have been changed by someone else.
+     */
+    void invalidate() {
+        display = null;
+        shown = -1;
+    }
+}
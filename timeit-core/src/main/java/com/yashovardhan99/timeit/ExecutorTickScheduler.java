@@ -0,0 +1,153 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A tick scheduler driven by a {@link ScheduledExecutorService}. This is the default scheduler outside of Android.
+ * The executor must be single threaded : stopwatches and timers change their state on its thread, and calls made on any other thread are run there, waiting for them to complete.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TickScheduler
+ * @since 2.0
+ */
+public class ExecutorTickScheduler extends TickScheduler {
+
+    private static ExecutorTickScheduler defaultScheduler;
+
+    private final ScheduledExecutorService executor;
+    private final Runnable dispatcher = () -> {
+        thread = Thread.currentThread();
+        dispatch();
+    };
+    private ScheduledFuture<?> pending;
+    /**
+     * The thread of the executor, recorded by a task queued at construction so that tasks submitted to the executor afterwards are known to run on it.
+     */
+    private volatile Thread thread;
+
+    /**
+     * Creates a scheduler which runs its ticks on the given executor, measuring time with {@link TimeSource#SYSTEM}.
+     *
+     * @param executor the executor to run ticks on
+     * @since 2.0
+     */
+    public ExecutorTickScheduler(ScheduledExecutorService executor) {
+        this(executor, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Creates a scheduler which runs its ticks on the given executor.
+     *
+     * @param executor   the executor to run ticks on
+     * @param timeSource the clock used for tick and timer deadlines
+     * @since 2.0
+     */
+    public ExecutorTickScheduler(ScheduledExecutorService executor, TimeSource timeSource) {
+        super(timeSource);
+        this.executor = executor;
+        pending = null;
+        thread = null;
+        // queued before any task which can reach this scheduler, so a call made from the executor never waits for itself
+        executor.execute(() -> thread = Thread.currentThread());
+    }
+
+    /**
+     * Returns the scheduler shared by all stopwatches and timers which are not given one explicitly.
+     * It ticks on a single daemon thread which is created the first time it is needed.
+     *
+     * @return the shared default scheduler
+     * @since 2.0
+     */
+    public static synchronized ExecutorTickScheduler getDefault() {
+        if (defaultScheduler == null)
+            defaultScheduler = newSingleThreadScheduler();
+        return defaultScheduler;
+    }
+
+    /**
+     * Creates a scheduler which ticks on a new daemon platform thread.
+     *
+     * @return a new scheduler with its own thread
+     * @since 2.0
+     */
+    public static ExecutorTickScheduler newSingleThreadScheduler() {
+        return new ExecutorTickScheduler(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TimeIt-Ticks");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Creates a scheduler which ticks on a virtual thread. Requires Java 21 or later at runtime.
+     * A virtual thread is only mounted on a carrier thread while a tick is being dispatched, so idle schedulers cost no platform thread.
+     *
+     * @return a new scheduler driven by a virtual thread
+     * @throws UnsupportedOperationException if virtual threads are not available
+     * @since 2.0
+     */
+    public static ExecutorTickScheduler newVirtualThreadScheduler() {
+        ThreadFactory factory;
+        try {
+            // looked up reflectively so that the library can still be compiled for and run on Java 8
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Object named = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class).invoke(builder, "TimeIt-Ticks");
+            factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported on this runtime", e);
+        }
+        return new ExecutorTickScheduler(Executors.newSingleThreadScheduledExecutor(factory));
+    }
+
+    /**
+     * Returns the executor ticks are run on.
+     *
+     * @return the executor of this scheduler
+     * @since 2.0
+     */
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    protected boolean isDispatchThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    protected void post(Runnable task) {
+        executor.execute(() -> {
+            thread = Thread.currentThread();
+            task.run();
+        });
+    }
+
+    @Override
+    protected void requestDispatch(long delay) {
+        if (pending != null)
+            pending.cancel(false);
+        pending = executor.schedule(dispatcher, delay, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A sequence of timed segments, such as the work and rest intervals of a training session or the focus and break periods of a Pomodoro flow.
+ * Segments can be grouped in blocks which repeat, and blocks can be nested. The program is compiled once by its {@link Builder} into a tree of blocks,
+ * which keeps every block once with the segment count and duration of a single run, so it takes as much memory as its description however many times its blocks repeat.
+ * A segment is found from its index or from a time by dividing by the duration of a run of each enclosing block, in time proportional to the nesting depth.
+ * <p>
+ * An {@link IntervalTimer} runs a program against a single elapsed time, so every boundary is reached at its exact offset from the start and no delay adds up from one segment to the next.
+ * <p>
+ * A program is immutable and can be run by any number of interval timers.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see IntervalTimer
+ * @since 2.0
+ */
+public final class IntervalProgram {
+
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int NAME = 2;
+
+    /**
+     * The whole program, as a block which runs once.
+     */
+    private final Block root;
+    private final String[] names;
+
+    private IntervalProgram(Block root, String[] names) {
+        this.root = root;
+        this.names = names;
+    }
+
+    /**
+     * Returns the number of segments, counting every repetition.
+     *
+     * @return the number of segments in this program
+     * @since 2.0
+     */
+    public int getSegmentCount() {
+        return root.count;
+    }
+
+    /**
+     * Returns the name of a segment.
+     *
+     * @param segment the index of the segment
+     * @return the name given to the segment
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @since 2.0
+     */
+    public String getSegmentName(int segment) {
+        return names[(int) locate(segment, NAME)];
+    }
+
+    /**
+     * Returns the duration of a segment.
+     *
+     * @param segment the index of the segment
+     * @return the duration in milliseconds
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @since 2.0
+     */
+    public long getSegmentDuration(int segment) {
+        return (getSegmentEndNanos(segment) - getSegmentStartNanos(segment)) / 1000000;
+    }
+
+    /**
+     * Returns when a segment starts.
+     *
+     * @param segment the index of the segment
+     * @return the time in nanoseconds since the start of the program
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @since 2.0
+     */
+    public long getSegmentStartNanos(int segment) {
+        return locate(segment, START);
+    }
+
+    /**
+     * Returns when a segment ends.
+     *
+     * @param segment the index of the segment
+     * @return the time in nanoseconds since the start of the program
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @since 2.0
+     */
+    public long getSegmentEndNanos(int segment) {
+        return locate(segment, END);
+    }
+
+    /**
+     * Returns the duration of the whole program.
+     *
+     * @return the total duration in milliseconds
+     * @since 2.0
+     */
+    public long getTotalDuration() {
+        return root.duration / 1000000;
+    }
+
+    /**
+     * Returns the segment running at the given time.
+     *
+     * @param time the time in nanoseconds since the start of the program
+     * @return the index of the segment, or the segment count if the program has ended
+     * @since 2.0
+     */
+    public int getSegmentAt(long time) {
+        if (time >= root.duration)
+            return root.count;
+        if (time < 0)
+            return 0;
+        Block block = root;
+        int segment = 0;
+        while (true) {
+            // skip the runs of the block which have ended, then find the child running within this run
+            segment += (int) (time / block.duration) * block.count;
+            time %= block.duration;
+            int child = search(block.timeEnds, time);
+            if (child > 0) {
+                segment += block.countEnds[child - 1];
+                time -= block.timeEnds[child - 1];
+            }
+            if (block.blocks[child] == null)
+                return segment;
+            block = block.blocks[child];
+        }
+    }
+
+    /**
+     * Finds a segment by descending the blocks which contain it.
+     *
+     * @param segment the index of the segment
+     * @param what    {@link #START} or {@link #END} for its time, {@link #NAME} for the index of its name
+     */
+    private long locate(int segment, int what) {
+        if (segment < 0 || segment >= root.count)
+            throw new IndexOutOfBoundsException("Segment : " + segment + ", Count : " + root.count);
+        Block block = root;
+        long time = 0;
+        while (true) {
+            time += segment / block.count * block.duration;
+            segment %= block.count;
+            int child = search(block.countEnds, segment);
+            long start = child == 0 ? 0 : block.timeEnds[child - 1];
+            if (block.blocks[child] == null) {
+                if (what == NAME)
+                    return block.nameIndexes[child];
+                return time + (what == END ? block.timeEnds[child] : start);
+            }
+            if (child > 0)
+                segment -= block.countEnds[child - 1];
+            time += start;
+            block = block.blocks[child];
+        }
+    }
+
+    /**
+     * Returns the first child which ends after the given value.
+     */
+    private static int search(int[] ends, int value) {
+        int index = Arrays.binarySearch(ends, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Returns the first child which ends after the given time. A child ends at its end time, which is the start of the next one.
+     */
+    private static int search(long[] ends, long value) {
+        int index = Arrays.binarySearch(ends, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * A block of segments and nested blocks, which is kept once however many times it repeats.
+     *
+     * @since 2.0
+     */
+    private static final class Block {
+        /**
+         * The segment count and duration in nanoseconds of a single run of the block, never 0.
+         */
+        private final int count;
+        private final long duration;
+        /**
+         * For every child, the number of segments and the time in nanoseconds from the start of a run to its end, counting every repetition of a nested block.
+         */
+        private final int[] countEnds;
+        private final long[] timeEnds;
+        /**
+         * The nested block of every child, null for a segment.
+         */
+        private final Block[] blocks;
+        /**
+         * The index of the name of every child which is a segment.
+         */
+        private final int[] nameIndexes;
+
+        Block(int[] countEnds, long[] timeEnds, Block[] blocks, int[] nameIndexes) {
+            this.countEnds = countEnds;
+            this.timeEnds = timeEnds;
+            this.blocks = blocks;
+            this.nameIndexes = nameIndexes;
+            count = countEnds.length == 0 ? 0 : countEnds[countEnds.length - 1];
+            duration = timeEnds.length == 0 ? 0 : timeEnds[timeEnds.length - 1];
+        }
+    }
+
+    /**
+     * Builds an interval program. Segments are added in order, and blocks opened with {@link #repeat(int)} are closed with {@link #end()}.
+     * <pre>
+     * IntervalProgram program = new IntervalProgram.Builder()
+     *         .segment("Warm up", 300000)
+     *         .repeat(8)
+     *             .segment("Work", 20000)
+     *             .segment("Rest", 10000)
+     *         .end()
+     *         .segment("Cool down", 300000)
+     *         .build();
+     * </pre>
+     * A block is stored once, so repeating it any number of times costs no more memory than running it once.
+     *
+     * @since 2.0
+     */
+    public static final class Builder {
+        private final ArrayList<String> names;
+        /**
+         * The open blocks, the whole program first and the innermost block last.
+         */
+        private OpenBlock[] blocks;
+        private int depth;
+
+        /**
+         * Creates an empty builder.
+         *
+         * @since 2.0
+         */
+        public Builder() {
+            names = new ArrayList<>();
+            blocks = new OpenBlock[4];
+            blocks[0] = new OpenBlock(1);
+            depth = 1;
+        }
+
+        /**
+         * Adds a segment.
+         *
+         * @param name     the name of the segment, passed back by {@link IntervalProgram#getSegmentName(int)}
+         * @param duration the duration of the segment in milliseconds
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not positive
+         * @throws IllegalStateException    if the program would have more than Integer.MAX_VALUE segments or last longer than Long.MAX_VALUE nanoseconds
+         * @since 2.0
+         */
+        public Builder segment(String name, long duration) {
+            if (duration <= 0)
+                throw new IllegalArgumentException("Duration must be positive : " + duration);
+            if (duration > Long.MAX_VALUE / 1000000)
+                throw new IllegalStateException("Program too long : segment of " + duration + "ms");
+            int nameIndex = names.indexOf(name);
+            if (nameIndex < 0) {
+                nameIndex = names.size();
+                names.add(name);
+            }
+            blocks[depth - 1].add(1, duration * 1000000, null, nameIndex);
+            return this;
+        }
+
+        /**
+         * Opens a block whose segments are repeated the given number of times once it is closed with {@link #end()}.
+         *
+         * @param times the number of times the block runs
+         * @return this builder
+         * @throws IllegalArgumentException if times is not positive
+         * @since 2.0
+         */
+        public Builder repeat(int times) {
+            if (times <= 0)
+                throw new IllegalArgumentException("Times must be positive : " + times);
+            if (depth == blocks.length)
+                blocks = Arrays.copyOf(blocks, depth * 2);
+            blocks[depth++] = new OpenBlock(times);
+            return this;
+        }
+
+        /**
+         * Closes the innermost block opened with {@link #repeat(int)}, repeating its segments. A block without any segment is dropped.
+         *
+         * @return this builder
+         * @throws IllegalStateException if no block is open, or if the program would have more than Integer.MAX_VALUE segments or last longer than Long.MAX_VALUE nanoseconds
+         * @since 2.0
+         */
+        public Builder end() {
+            if (depth == 1)
+                throw new IllegalStateException("No block to end");
+            OpenBlock open = blocks[--depth];
+            blocks[depth] = null;
+            Block block = open.close();
+            if (block.count == 0)
+                return this;
+            if ((long) block.count * open.repeats > Integer.MAX_VALUE)
+                throw new IllegalStateException("Too many segments : " + (long) block.count * open.repeats);
+            if (block.duration > Long.MAX_VALUE / open.repeats)
+                throw new IllegalStateException("Program too long : " + open.repeats + " runs of " + block.duration + "ns");
+            blocks[depth - 1].add(block.count * open.repeats, block.duration * open.repeats, block, -1);
+            return this;
+        }
+
+        /**
+         * Compiles the program.
+         *
+         * @return the compiled program
+         * @throws IllegalStateException if a block has not been closed
+         * @since 2.0
+         */
+        public IntervalProgram build() {
+            if (depth > 1)
+                throw new IllegalStateException(depth - 1 + " blocks not ended");
+            return new IntervalProgram(blocks[0].close(), names.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * A block being built, whose children are added in order.
+     *
+     * @since 2.0
+     */
+    private static final class OpenBlock {
+        private final int repeats;
+        private int[] countEnds = new int[8];
+        private long[] timeEnds = new long[8];
+        private Block[] blocks = new Block[8];
+        private int[] nameIndexes = new int[8];
+        private int size;
+
+        OpenBlock(int repeats) {
+            this.repeats = repeats;
+        }
+
+        void add(int count, long duration, Block block, int nameIndex) {
+            int countEnd = size == 0 ? 0 : countEnds[size - 1];
+            long timeEnd = size == 0 ? 0 : timeEnds[size - 1];
+            if (countEnd > Integer.MAX_VALUE - count)
+                throw new IllegalStateException("Too many segments : " + ((long) countEnd + count));
+            if (timeEnd > Long.MAX_VALUE - duration)
+                throw new IllegalStateException("Program too long : more than " + Long.MAX_VALUE + "ns");
+            if (size == countEnds.length) {
+                countEnds = Arrays.copyOf(countEnds, size * 2);
+                timeEnds = Arrays.copyOf(timeEnds, size * 2);
+                blocks = Arrays.copyOf(blocks, size * 2);
+                nameIndexes = Arrays.copyOf(nameIndexes, size * 2);
+            }
+            countEnds[size] = countEnd + count;
+            timeEnds[size] = timeEnd + duration;
+            blocks[size] = block;
+            nameIndexes[size] = nameIndex;
+            size++;
+        }
+
+        Block close() {
+            return new Block(Arrays.copyOf(countEnds, size), Arrays.copyOf(timeEnds, size), Arrays.copyOf(blocks, size), Arrays.copyOf(nameIndexes, size));
+        }
+    }
+}
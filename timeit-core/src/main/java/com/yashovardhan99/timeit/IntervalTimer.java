@@ -0,0 +1,308 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * Runs an {@link IntervalProgram} : a sequence of segments timed by one stopwatch instead of one timer per segment.
+ * Every segment boundary is scheduled at its offset in the program from the elapsed time of that stopwatch, so the lateness of one boundary is not carried over to the next ones and the program ends exactly after its total duration.
+ * Moving from one segment to the next only advances an index and schedules the next boundary, nothing is allocated.
+ * <p>
+ * Like a {@link Timer}, an interval timer can be paused and resumed, and only changes its state on the thread of its scheduler : methods called on any other thread are run there.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see IntervalProgram
+ * @since 2.0
+ */
+public class IntervalTimer {
+
+    private final IntervalProgram program;
+    private final Stopwatch stopwatch;
+    private OnSegmentListener onSegmentListener;
+    /**
+     * The index of the running segment, the segment count once the program has completed.
+     */
+    private volatile int segment;
+    /**
+     * Incremented by every start, stop, pause and resume, so that a boundary can tell when a listener has taken over the program.
+     */
+    private int generation;
+
+    /**
+     * Moves to the next segment when the current one ends.
+     *
+     * @since 2.0
+     */
+    private final TimingWheel.Timeout boundary = new TimingWheel.Timeout(this::advance);
+
+    /**
+     * Creates an interval timer which measures time with {@link TimeSource#SYSTEM} and ticks on the {@link ExecutorTickScheduler#getDefault() default scheduler}.
+     *
+     * @param program the program to run
+     * @since 2.0
+     */
+    public IntervalTimer(IntervalProgram program) {
+        this(program, TimeSource.SYSTEM, ExecutorTickScheduler.getDefault());
+    }
+
+    /**
+     * Creates an interval timer which measures time with the given time source and ticks on the given scheduler.
+     *
+     * @param program    the program to run
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @param scheduler  the scheduler which ends the segments
+     * @since 2.0
+     */
+    public IntervalTimer(IntervalProgram program, TimeSource timeSource, TickScheduler scheduler) {
+        this.program = program;
+        stopwatch = new Stopwatch(timeSource, scheduler);
+        onSegmentListener = null;
+        segment = 0;
+    }
+
+    /**
+     * Returns the program run by this timer.
+     *
+     * @return the program
+     * @since 2.0
+     */
+    public IntervalProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Set a listener to be told when every segment starts and when the program completes.
+     *
+     * @param onSegmentListener the listener. Can be null.
+     * @since 2.0
+     */
+    public void setOnSegmentListener(OnSegmentListener onSegmentListener) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setOnSegmentListener(onSegmentListener));
+            return;
+        }
+        this.onSegmentListener = onSegmentListener;
+    }
+
+    /**
+     * Returns the stopwatch measuring the elapsed time of the program, which can be used to add tick listeners or a display.
+     * It must not be controlled directly.
+     *
+     * @return the underlying stopwatch
+     * @since 2.0
+     */
+    public Stopwatch getStopwatch() {
+        return stopwatch;
+    }
+
+    /**
+     * Returns true if the program is running or paused.
+     *
+     * @return true if the timer has been started and has neither completed nor been stopped
+     * @since 2.0
+     */
+    public boolean isStarted() {
+        return stopwatch.isStarted();
+    }
+
+    /**
+     * Returns true if the timer is paused.
+     *
+     * @return true if the timer is paused
+     * @since 2.0
+     */
+    public boolean isPaused() {
+        return stopwatch.isPaused();
+    }
+
+    /**
+     * Returns the index of the running segment.
+     *
+     * @return the index of the segment, the segment count once the program has completed
+     * @since 2.0
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Returns the time since the program was started, not counting pauses.
+     *
+     * @return the elapsed time in milliseconds
+     * @since 2.0
+     */
+    public long getElapsedTime() {
+        return stopwatch.getElapsedTime();
+    }
+
+    /**
+     * Returns the time left in the running segment.
+     *
+     * @return the remaining time of the segment in milliseconds, 0 once the program has completed
+     * @since 2.0
+     */
+    public long getSegmentRemainingTime() {
+        if (segment >= program.getSegmentCount())
+            return 0;
+        return Math.max(0, program.getSegmentEndNanos(segment) - stopwatch.readElapsedTimeNanos()) / 1000000;
+    }
+
+    /**
+     * Returns the time left in the whole program.
+     *
+     * @return the remaining time in milliseconds, 0 once the program has completed
+     * @since 2.0
+     */
+    public long getRemainingTime() {
+        if (segment >= program.getSegmentCount())
+            return 0;
+        return Math.max(0, program.getTotalDuration() - stopwatch.getElapsedTime());
+    }
+
+    /**
+     * Starts the program from its first segment.
+     *
+     * @throws IllegalStateException if the timer has already been started or the program is empty
+     * @since 2.0
+     */
+    public void start() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> start());
+            return;
+        }
+        if (program.getSegmentCount() == 0)
+            throw new IllegalStateException("Empty program");
+        stopwatch.start();
+        generation++;
+        segment = 0;
+        if (onSegmentListener != null)
+            onSegmentListener.onSegmentStart(this, 0);
+        scheduleBoundary();
+    }
+
+    /**
+     * Stops the program. It can only be started again from the first segment.
+     *
+     * @throws IllegalStateException if the timer has not been started
+     * @since 2.0
+     */
+    public void stop() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> stop());
+            return;
+        }
+        stopwatch.stop();
+        generation++;
+        stopwatch.getTickScheduler().cancel(boundary);
+    }
+
+    /**
+     * Pauses the program.
+     *
+     * @throws IllegalStateException if the timer is not running
+     * @since 2.0
+     */
+    public void pause() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> pause());
+            return;
+        }
+        stopwatch.pause();
+        generation++;
+        stopwatch.getTickScheduler().cancel(boundary);
+    }
+
+    /**
+     * Resumes a paused program.
+     *
+     * @throws IllegalStateException if the timer is not paused
+     * @since 2.0
+     */
+    public void resume() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> resume());
+            return;
+        }
+        stopwatch.resume();
+        generation++;
+        scheduleBoundary();
+    }
+
+    private void scheduleBoundary() {
+        if (stopwatch.isStarted() && !stopwatch.isPaused())
+            stopwatch.getTickScheduler().schedule(boundary, program.getSegmentEndNanos(segment) - stopwatch.readElapsedTimeNanos());
+    }
+
+    /**
+     * Called by the scheduler when the running segment ends. Moves past every segment which has ended, so a late wake up never skips a callback.
+     *
+     * @since 2.0
+     */
+    private void advance() {
+        if (!stopwatch.isStarted() || stopwatch.isPaused())
+            return;
+        long elapsed = stopwatch.readElapsedTimeNanos();
+        int count = program.getSegmentCount();
+        int run = generation;
+        while (program.getSegmentEndNanos(segment) <= elapsed) {
+            segment++;
+            if (segment == count) {
+                stopwatch.stop();
+                if (onSegmentListener != null)
+                    onSegmentListener.onComplete(this);
+                return;
+            }
+            if (onSegmentListener != null) {
+                onSegmentListener.onSegmentStart(this, segment);
+                if (generation != run)
+                    // the listener stopped, paused or restarted the program, which has already scheduled what comes next
+                    return;
+            }
+        }
+        scheduleBoundary();
+    }
+
+    /**
+     * Interface to listen for the segments of an interval timer.
+     *
+     * @since 2.0
+     */
+    public interface OnSegmentListener {
+        /**
+         * Called when a segment starts, including the first one when the timer is started.
+         *
+         * @param timer   the interval timer
+         * @param segment the index of the segment in the program
+         * @since 2.0
+         */
+        void onSegmentStart(IntervalTimer timer, int segment);
+
+        /**
+         * Called when the last segment has ended.
+         *
+         * @param timer the interval timer
+         * @since 2.0
+         */
+        void onComplete(IntervalTimer timer);
+    }
+}
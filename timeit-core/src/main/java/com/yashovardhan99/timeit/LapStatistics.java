@@ -0,0 +1,160 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * Running statistics of the lap times of a stopwatch.
+ * They are updated in constant time on every split (using Welford's algorithm for the variance), so they cover every lap since the stopwatch was started even if older splits have been discarded from a bounded history.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#getLapStatistics()
+ * @since 2.0
+ */
+public final class LapStatistics {
+
+    private long count, min, max;
+    private double mean, squaredDeviations, average, smoothingFactor;
+
+    LapStatistics() {
+        smoothingFactor = 0.1;
+        clear();
+    }
+
+    /**
+     * Returns the number of laps.
+     *
+     * @return the number of laps recorded since the stopwatch was started
+     * @since 2.0
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the shortest lap in nanoseconds.
+     *
+     * @return the shortest lap time, 0 if there are no laps
+     * @since 2.0
+     */
+    public long getMinNanos() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the longest lap in nanoseconds.
+     *
+     * @return the longest lap time, 0 if there are no laps
+     * @since 2.0
+     */
+    public long getMaxNanos() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Returns the mean lap time in nanoseconds.
+     *
+     * @return the mean lap time, 0 if there are no laps
+     * @since 2.0
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample variance of the lap times in square nanoseconds.
+     *
+     * @return the variance of the lap times, 0 if there are less than two laps
+     * @since 2.0
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squaredDeviations / (count - 1);
+    }
+
+    /**
+     * Returns the sample standard deviation of the lap times in nanoseconds.
+     *
+     * @return the standard deviation of the lap times, 0 if there are less than two laps
+     * @since 2.0
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Returns the exponentially weighted moving average of the lap times in nanoseconds.
+     * Recent laps weigh more, so this follows changes in pace faster than the mean.
+     *
+     * @return the moving average of the lap times, 0 if there are no laps
+     * @see #setSmoothingFactor(double)
+     * @since 2.0
+     */
+    public double getMovingAverage() {
+        return average;
+    }
+
+    /**
+     * Returns the weight of the latest lap in the moving average.
+     *
+     * @return the smoothing factor (default : 0.1)
+     * @since 2.0
+     */
+    public double getSmoothingFactor() {
+        return smoothingFactor;
+    }
+
+    /**
+     * Sets the weight of the latest lap in the moving average. Higher values follow changes faster.
+     *
+     * @param smoothingFactor a value greater than 0 and at most 1 (default : 0.1)
+     * @throws IllegalArgumentException if the smoothing factor is out of range
+     * @since 2.0
+     */
+    public void setSmoothingFactor(double smoothingFactor) {
+        if (!(smoothingFactor > 0 && smoothingFactor <= 1))
+            throw new IllegalArgumentException("Smoothing factor out of range : " + smoothingFactor);
+        this.smoothingFactor = smoothingFactor;
+    }
+
+    void add(long lapTime) {
+        count++;
+        if (count == 1) {
+            min = lapTime;
+            max = lapTime;
+            average = lapTime;
+        } else {
+            if (lapTime < min)
+                min = lapTime;
+            if (lapTime > max)
+                max = lapTime;
+            average += smoothingFactor * (lapTime - average);
+        }
+        double delta = lapTime - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (lapTime - mean);
+    }
+
+    void clear() {
+        count = 0;
+        min = 0;
+        max = 0;
+        mean = 0;
+        squaredDeviations = 0;
+        average = 0;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * A log-linear histogram of latencies, in the style of HdrHistogram.
+ * Values below 2<sup>p</sup> (where p is the precision in bits) are counted exactly. Above that, every power of two range is split into 2<sup>p-1</sup> equally wide buckets, so every value is counted with a relative error of at most 2<sup>1-p</sup>.
+ * <p>
+ * The whole range of positive longs is covered with a fixed number of counters, which are allocated up front. Recording a value is a few shifts and an array increment, and never allocates.
+ * Histograms with the same precision can be merged, for example to combine the laps of several stopwatches.
+ * <p>
+ * This class is not thread safe.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#setLapHistogram(LatencyHistogram)
+ * @since 2.0
+ */
+public final class LatencyHistogram {
+
+    private final int precision;
+    private final long[] counts;
+    private long totalCount, min, max;
+    private double sum;
+
+    /**
+     * Creates a histogram with 7 bits of precision, which counts values with a relative error below 1.6%.
+     *
+     * @since 2.0
+     */
+    public LatencyHistogram() {
+        this(7);
+    }
+
+    /**
+     * Creates a histogram with the given precision. Memory use doubles with every bit.
+     *
+     * @param precision number of significant bits kept for every value, between 1 and 16
+     * @throws IllegalArgumentException if the precision is out of range
+     * @since 2.0
+     */
+    public LatencyHistogram(int precision) {
+        if (precision < 1 || precision > 16)
+            throw new IllegalArgumentException("Precision out of range : " + precision);
+        this.precision = precision;
+        counts = new long[(65 - precision) << (precision - 1)];
+        reset();
+    }
+
+    /**
+     * Returns the precision of this histogram.
+     *
+     * @return number of significant bits kept for every value
+     * @since 2.0
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value to record, usually a latency in nanoseconds
+     * @throws IllegalArgumentException if the value is negative
+     * @since 2.0
+     */
+    public void record(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value : " + value);
+        counts[index(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     *
+     * @param other the histogram to merge into this one
+     * @throws IllegalArgumentException if the other histogram has a different precision
+     * @since 2.0
+     */
+    public void add(LatencyHistogram other) {
+        if (other.precision != precision)
+            throw new IllegalArgumentException("Precision mismatch : " + other.precision + " != " + precision);
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes all recorded values.
+     *
+     * @since 2.0
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = 0;
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values recorded
+     * @since 2.0
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the exact smallest value, 0 if nothing has been recorded
+     * @since 2.0
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the exact largest value, 0 if nothing has been recorded
+     * @since 2.0
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the exact mean, 0 if nothing has been recorded
+     * @since 2.0
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of recorded values fall, for example 99.9 for the p99.9 latency.
+     * The result is the highest value counted in the same bucket, so it is never lower than the actual percentile and at most the precision away from it.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, 0 if nothing has been recorded
+     * @throws IllegalArgumentException if the percentile is out of range
+     * @since 2.0
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("Percentile out of range : " + percentile);
+        if (totalCount == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return Math.min(Math.max(highestValue(i), min), max);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of recorded values which were counted in the same bucket as the given value.
+     *
+     * @param value a value
+     * @return the number of recorded values equivalent to the value at this precision
+     * @since 2.0
+     */
+    public long getCountAtValue(long value) {
+        return value < 0 ? 0 : counts[index(value)];
+    }
+
+    /**
+     * Returns the bucket a value is counted in.
+     * Values below 2^precision have their own bucket, larger values keep their top precision bits.
+     */
+    int index(long value) {
+        int shift = 64 - Long.numberOfLeadingZeros(value) - precision;
+        if (shift <= 0)
+            return (int) value;
+        return (shift << (precision - 1)) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the largest value counted in a bucket.
+     */
+    long highestValue(int index) {
+        int shift = (index >>> (precision - 1)) - 1;
+        if (shift <= 0)
+            return index;
+        long lowest = (long) (index - (shift << (precision - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
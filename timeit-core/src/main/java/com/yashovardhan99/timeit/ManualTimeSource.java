@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A time source which only moves when told to. Useful for testing code which uses a stopwatch or timer without waiting for real time to pass.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TimeSource
+ * @since 2.0
+ */
+public class ManualTimeSource implements TimeSource {
+    private volatile long nanoTime;
+
+    /**
+     * Creates a time source starting at 0.
+     *
+     * @since 2.0
+     */
+    public ManualTimeSource() {
+        this(0);
+    }
+
+    /**
+     * Creates a time source starting at the given value.
+     *
+     * @param nanoTime the initial time in nanoseconds
+     * @since 2.0
+     */
+    public ManualTimeSource(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Sets the current time of this source.
+     *
+     * @param nanoTime the new time in nanoseconds
+     * @since 2.0
+     */
+    public void setNanoTime(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Moves this time source forward by the given amount.
+     *
+     * @param duration the amount of time to advance by
+     * @param unit     the unit of duration
+     * @throws IllegalArgumentException if duration is negative
+     * @since 2.0
+     */
+    public synchronized void advance(long duration, TimeUnit unit) {
+        if (duration < 0)
+            throw new IllegalArgumentException("Negative duration");
+        nanoTime += unit.toNanos(duration);
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Profiles sections of code with named, nested scopes and builds a call tree of their aggregate times on every thread.
+ * <pre>
+ * try (Profiler.Scope scope = profiler.enter("load")) {
+ *     try (Profiler.Scope parse = profiler.enter("parse")) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Every thread keeps its own call tree and its own pool of scopes, one per nesting depth, so entering and closing a scope reads the clock twice, finds the child of the current node and allocates nothing once a call path has been seen.
+ * {@link #report()} merges the trees of all threads into a single tree of {@link Node nodes}.
+ * The tree of a thread which has died is merged into a retired tree once and dropped, so threads coming and going do not make the profiler grow.
+ * <p>
+ * A scope is only valid until it is closed, and scopes must be closed in the reverse order they were entered, on the thread which entered them.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TimeSource
+ * @since 2.0
+ */
+public final class Profiler {
+
+    private final TimeSource timeSource;
+    private final ArrayList<ThreadProfile> threads;
+    /**
+     * The aggregate times of the threads which have died, guarded by the lock of {@link #threads}.
+     */
+    private final CallSite retired;
+    private final ThreadLocal<ThreadProfile> profiles = new ThreadLocal<ThreadProfile>() {
+        @Override
+        protected ThreadProfile initialValue() {
+            ThreadProfile profile = new ThreadProfile();
+            synchronized (threads) {
+                retireDeadThreads();
+                threads.add(profile);
+            }
+            return profile;
+        }
+    };
+    /**
+     * Returned while the profiler is disabled, closing it does nothing.
+     */
+    private final Scope disabledScope = new Scope(null, -1);
+    private volatile boolean enabled;
+
+    /**
+     * Creates a profiler which measures time with {@link TimeSource#SYSTEM}.
+     *
+     * @since 2.0
+     */
+    public Profiler() {
+        this(TimeSource.SYSTEM);
+    }
+
+    /**
+     * Creates a profiler which measures time with the given time source.
+     *
+     * @param timeSource the monotonic clock used to measure scopes
+     * @since 2.0
+     */
+    public Profiler(TimeSource timeSource) {
+        this.timeSource = timeSource;
+        threads = new ArrayList<>();
+        retired = new CallSite(null, null);
+        enabled = true;
+    }
+
+    /**
+     * Returns true if scopes are measured.
+     *
+     * @return true if the profiler is enabled (default : true)
+     * @since 2.0
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether scopes are measured. While disabled, entering a scope only returns a shared scope which does nothing.
+     * Scopes entered while enabled must still be closed.
+     *
+     * @param enabled true to measure scopes
+     * @since 2.0
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Enters a scope nested in the innermost open scope of the current thread. Close it, preferably with try-with-resources, to record its time.
+     *
+     * @param name the name of the scope. Scopes with equal names at the same path are aggregated, using constants avoids comparing strings.
+     * @return the scope to close
+     * @since 2.0
+     */
+    public Scope enter(String name) {
+        if (name == null)
+            throw new NullPointerException("name == null");
+        if (!enabled)
+            return disabledScope;
+        return profiles.get().enter(name);
+    }
+
+    /**
+     * Merges the call trees of all threads into one, adding up the times of scopes with the same path.
+     * Scopes which are still open are not included.
+     *
+     * @return the root of the merged call tree, which has no name and the top level scopes as children
+     * @since 2.0
+     */
+    public Node report() {
+        Node root = new Node(null);
+        for (ThreadProfile profile : threadProfiles()) {
+            synchronized (profile) {
+                merge(root, profile.root);
+            }
+        }
+        synchronized (threads) {
+            merge(root, retired);
+        }
+        root.seal();
+        return root;
+    }
+
+    /**
+     * Clears the times of every scope on all threads, keeping the call trees so that nothing is allocated when the same paths are entered again.
+     *
+     * @since 2.0
+     */
+    public void reset() {
+        for (ThreadProfile profile : threadProfiles()) {
+            synchronized (profile) {
+                profile.root.clear();
+            }
+        }
+        synchronized (threads) {
+            retired.clear();
+        }
+    }
+
+    private ThreadProfile[] threadProfiles() {
+        synchronized (threads) {
+            retireDeadThreads();
+            return threads.toArray(new ThreadProfile[0]);
+        }
+    }
+
+    /**
+     * Moves the times of the threads which have died into the retired tree and drops their profiles. Called with the lock of {@link #threads} held.
+     */
+    private void retireDeadThreads() {
+        for (int i = threads.size() - 1; i >= 0; i--) {
+            ThreadProfile profile = threads.get(i);
+            Thread owner = profile.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                // a dead thread no longer changes its tree, so it can be read without its lock
+                retire(retired, profile.root);
+                threads.remove(i);
+            }
+        }
+    }
+
+    private static void retire(CallSite target, CallSite site) {
+        for (CallSite child = site.firstChild; child != null; child = child.nextSibling) {
+            CallSite retiredChild = target.child(child.name, target);
+            retiredChild.add(child);
+            retire(retiredChild, child);
+        }
+    }
+
+    private static void merge(Node target, CallSite site) {
+        for (CallSite child = site.firstChild; child != null; child = child.nextSibling) {
+            Node node = target.child(child.name);
+            node.add(child);
+            merge(node, child);
+        }
+    }
+
+    /**
+     * An open scope, returned by {@link #enter(String)}. Scopes are reused, so a scope must not be used after it has been closed.
+     *
+     * @since 2.0
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ThreadProfile profile;
+        private final int depth;
+        private CallSite site;
+        private long start;
+
+        private Scope(ThreadProfile profile, int depth) {
+            this.profile = profile;
+            this.depth = depth;
+        }
+
+        /**
+         * Records the time since the scope was entered.
+         *
+         * @throws IllegalStateException if an inner scope is still open
+         * @since 2.0
+         */
+        @Override
+        public void close() {
+            if (profile != null)
+                profile.exit(this);
+        }
+    }
+
+    /**
+     * A node of a merged call tree : the aggregate times of a scope at one path.
+     *
+     * @since 2.0
+     */
+    public static final class Node {
+        private final String name;
+        private List<Node> children;
+        private long count, totalTime, minTime, maxTime;
+
+        private Node(String name) {
+            this.name = name;
+            children = new ArrayList<>();
+            minTime = Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns the name of the scope.
+         *
+         * @return the name, null for the root
+         * @since 2.0
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of times the scope was closed.
+         *
+         * @return the number of calls
+         * @since 2.0
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the time spent in the scope, including its children.
+         *
+         * @return the total time in nanoseconds
+         * @since 2.0
+         */
+        public long getTotalTimeNanos() {
+            return totalTime;
+        }
+
+        /**
+         * Returns the time spent in the scope outside of its children.
+         *
+         * @return the self time in nanoseconds
+         * @since 2.0
+         */
+        public long getSelfTimeNanos() {
+            long self = totalTime;
+            for (Node child : children)
+                self -= child.totalTime;
+            return Math.max(0, self);
+        }
+
+        /**
+         * Returns the shortest call of the scope.
+         *
+         * @return the shortest time in nanoseconds, 0 if there are no calls
+         * @since 2.0
+         */
+        public long getMinTimeNanos() {
+            return count == 0 ? 0 : minTime;
+        }
+
+        /**
+         * Returns the longest call of the scope.
+         *
+         * @return the longest time in nanoseconds
+         * @since 2.0
+         */
+        public long getMaxTimeNanos() {
+            return maxTime;
+        }
+
+        /**
+         * Returns the mean time of a call of the scope.
+         *
+         * @return the mean time in nanoseconds, 0 if there are no calls
+         * @since 2.0
+         */
+        public double getMeanTimeNanos() {
+            return count == 0 ? 0 : (double) totalTime / count;
+        }
+
+        /**
+         * Returns the scopes entered within this one.
+         *
+         * @return a read only list of the children, in the order they were first entered
+         * @since 2.0
+         */
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * Returns the child with the given name.
+         *
+         * @param name the name of the child scope
+         * @return the child, or null if no such scope was entered within this one
+         * @since 2.0
+         */
+        public Node getChild(String name) {
+            for (Node child : children) {
+                if (child.name.equals(name))
+                    return child;
+            }
+            return null;
+        }
+
+        /**
+         * Returns the tree below this node, one indented line per scope.
+         *
+         * @return a readable report
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            append(builder, 0);
+            return builder.toString();
+        }
+
+        private void append(StringBuilder builder, int indent) {
+            if (name != null) {
+                for (int i = 0; i < indent; i++)
+                    builder.append("  ");
+                builder.append(name)
+                        .append(" : count=").append(count)
+                        .append(", total=").append(totalTime / 1000).append("us")
+                        .append(", self=").append(getSelfTimeNanos() / 1000).append("us")
+                        .append(", mean=").append((long) getMeanTimeNanos() / 1000).append("us")
+                        .append(", max=").append(maxTime / 1000).append("us\n");
+                indent++;
+            }
+            for (Node child : children)
+                child.append(builder, indent);
+        }
+
+        private Node child(String name) {
+            Node child = getChild(name);
+            if (child == null) {
+                child = new Node(name);
+                children.add(child);
+            }
+            return child;
+        }
+
+        private void add(CallSite site) {
+            count += site.count;
+            totalTime += site.totalTime;
+            if (site.count > 0) {
+                minTime = Math.min(minTime, site.minTime);
+                maxTime = Math.max(maxTime, site.maxTime);
+            }
+        }
+
+        private void seal() {
+            for (Node child : children)
+                child.seal();
+            children = Collections.unmodifiableList(children);
+        }
+    }
+
+    /**
+     * The call tree and scope pool of one thread. Only the owning thread changes the tree, under the lock of the profile so that it can be merged from another thread.
+     *
+     * @since 2.0
+     */
+    private final class ThreadProfile {
+        /**
+         * The thread of this profile, weakly referenced so that a dead thread can be collected before it is retired.
+         */
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private final CallSite root = new CallSite(null, null);
+        private CallSite current = root;
+        private Scope[] scopes = new Scope[8];
+        private int depth = 0;
+
+        Scope enter(String name) {
+            CallSite site = current.child(name, this);
+            if (depth == scopes.length) {
+                Scope[] grown = new Scope[depth * 2];
+                System.arraycopy(scopes, 0, grown, 0, depth);
+                scopes = grown;
+            }
+            Scope scope = scopes[depth];
+            if (scope == null)
+                scopes[depth] = scope = new Scope(this, depth);
+            depth++;
+            scope.site = site;
+            current = site;
+            // read the clock last so that entering is not measured
+            scope.start = timeSource.nanoTime();
+            return scope;
+        }
+
+        void exit(Scope scope) {
+            long end = timeSource.nanoTime();
+            if (scope.depth != depth - 1)
+                throw new IllegalStateException("Scope " + scope.site.name + " closed while an inner scope is open");
+            CallSite site = scope.site;
+            synchronized (this) {
+                site.record(end - scope.start);
+            }
+            current = site.parent;
+            depth--;
+        }
+    }
+
+    /**
+     * The aggregate times of a scope at one path on one thread. Children are kept in a linked list, which is short for most scopes.
+     *
+     * @since 2.0
+     */
+    private static final class CallSite {
+        private final String name;
+        private final CallSite parent;
+        private CallSite firstChild, nextSibling;
+        private long count, totalTime, minTime, maxTime;
+
+        CallSite(String name, CallSite parent) {
+            this.name = name;
+            this.parent = parent;
+            clearTimes();
+        }
+
+        /**
+         * Finds the child with the given name, creating it under the given lock the first time.
+         */
+        CallSite child(String name, Object lock) {
+            CallSite last = null;
+            for (CallSite child = firstChild; child != null; child = child.nextSibling) {
+                // names are usually constants, compare references before contents
+                if (child.name == name || child.name.equals(name))
+                    return child;
+                last = child;
+            }
+            CallSite child = new CallSite(name, this);
+            synchronized (lock) {
+                if (last == null)
+                    firstChild = child;
+                else
+                    last.nextSibling = child;
+            }
+            return child;
+        }
+
+        void record(long time) {
+            count++;
+            totalTime += time;
+            if (time < minTime)
+                minTime = time;
+            if (time > maxTime)
+                maxTime = time;
+        }
+
+        void add(CallSite site) {
+            count += site.count;
+            totalTime += site.totalTime;
+            if (site.minTime < minTime)
+                minTime = site.minTime;
+            if (site.maxTime > maxTime)
+                maxTime = site.maxTime;
+        }
+
+        void clear() {
+            clearTimes();
+            for (CallSite child = firstChild; child != null; child = child.nextSibling)
+                child.clear();
+        }
+
+        private void clearTimes() {
+            count = 0;
+            totalTime = 0;
+            minTime = Long.MAX_VALUE;
+            maxTime = 0;
+        }
+    }
+}
@@ -16,8 +16,6 @@
 
 package com.yashovardhan99.timeit;
 
-import androidx.annotation.RestrictTo;
-
 /**
  * This is a utility class for the main Stopwatch class to help create and save splits and laps.
  * Created by Yashovardhan99 on 8/12/18 as a part of TimeIt.
@@ -31,13 +29,11 @@ public class Split {
 
     /**
      * Constructor to create a Split object.
-     * @param splitTime the time in milliseconds for which stopwatch has been running
-     * @param lapTime the time in milliseconds since the last split/lap
+     * @param splitTime the time in nanoseconds for which stopwatch has been running
+     * @param lapTime the time in nanoseconds since the last split/lap
      * @since 1.0
      */
-    @SuppressWarnings("WeakerAccess")
-    @RestrictTo(RestrictTo.Scope.LIBRARY)
-    public Split(long splitTime, long lapTime){
+    Split(long splitTime, long lapTime){
         this.splitTime = splitTime;
         this.lapTime = lapTime;
     }
@@ -49,6 +45,16 @@ public class Split {
      * @since 1.0
      */
     public long getLapTime() {
+        return lapTime / 1000000;
+    }
+
+    /**
+     * Gets the lap time in nanoseconds
+     * @return the time in nanoseconds between this and the last split/lap
+     * @see Stopwatch#split()
+     * @since 2.0
+     */
+    public long getLapTimeNanos() {
         return lapTime;
     }
 
@@ -58,6 +64,15 @@ public class Split {
      * @since 1.0
      */
     public long getSplitTime() {
+        return splitTime / 1000000;
+    }
+
+    /** Gets the split time in nanoseconds
+     * @return the time in nanoseconds since the stopwatch was running at the instant this split was created.
+     * @see Stopwatch#split()
+     * @since 2.0
+     */
+    public long getSplitTimeNanos() {
         return splitTime;
     }
 }
\ No newline at end of file
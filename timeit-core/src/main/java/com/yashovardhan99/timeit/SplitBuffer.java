@@ -0,0 +1,244 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The splits of a stopwatch, stored as primitive split and lap times.
+ * Recording a split only writes two longs, and any split can be read in constant time by its index without allocating :
+ * <pre>
+ * SplitBuffer splits = stopwatch.getSplitBuffer();
+ * for (int i = 0; i &lt; splits.size(); i++)
+ *     show(i, splits.getSplitTime(i), splits.getLapTime(i));
+ * </pre>
+ * {@link #asList()} provides a read only view of {@link Split} objects for code written against the 1.x API.
+ * <p>
+ * The buffer can be bounded with {@link Stopwatch#setSplitHistoryLimit(int)}, in which case it is used as a ring buffer holding only the latest splits.
+ * Index 0 is then the oldest split still held, and {@link #getDroppedCount()} tells how many older splits have been discarded.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#getSplitBuffer()
+ * @since 2.0
+ */
+public final class SplitBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] splitTimes, lapTimes;
+    /**
+     * Position of the oldest split in the arrays, only moves once a bounded buffer is full.
+     */
+    private int head, size, limit;
+    private long dropped;
+    private final List<Split> view = new SplitList();
+
+    SplitBuffer() {
+        splitTimes = new long[INITIAL_CAPACITY];
+        lapTimes = new long[INITIAL_CAPACITY];
+        head = 0;
+        size = 0;
+        limit = 0;
+        dropped = 0;
+    }
+
+    /**
+     * Returns the number of splits.
+     *
+     * @return the number of splits recorded
+     * @since 2.0
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if there are no splits.
+     *
+     * @return true if no split has been recorded
+     * @since 2.0
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the maximum number of splits held.
+     *
+     * @return the maximum number of splits held, 0 if unbounded
+     * @see Stopwatch#setSplitHistoryLimit(int)
+     * @since 2.0
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of old splits which have been discarded because the buffer was full.
+     * The split at index i is the split number {@code getDroppedCount() + i} since the stopwatch was started.
+     *
+     * @return the number of discarded splits
+     * @since 2.0
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Gets the split time of a split in nanoseconds
+     *
+     * @param index index of the split, starting from 0
+     * @return the time in nanoseconds the stopwatch had been running for when the split was created
+     * @throws IndexOutOfBoundsException if there is no split at the index
+     * @since 2.0
+     */
+    public long getSplitTimeNanos(int index) {
+        return splitTimes[position(index)];
+    }
+
+    /**
+     * Gets the lap time of a split in nanoseconds
+     *
+     * @param index index of the split, starting from 0
+     * @return the time in nanoseconds between the split and the one before it
+     * @throws IndexOutOfBoundsException if there is no split at the index
+     * @since 2.0
+     */
+    public long getLapTimeNanos(int index) {
+        return lapTimes[position(index)];
+    }
+
+    /**
+     * Gets the split time of a split in milliseconds
+     *
+     * @param index index of the split, starting from 0
+     * @return the time in milliseconds the stopwatch had been running for when the split was created
+     * @throws IndexOutOfBoundsException if there is no split at the index
+     * @since 2.0
+     */
+    public long getSplitTime(int index) {
+        return getSplitTimeNanos(index) / 1000000;
+    }
+
+    /**
+     * Gets the lap time of a split in milliseconds
+     *
+     * @param index index of the split, starting from 0
+     * @return the time in milliseconds between the split and the one before it
+     * @throws IndexOutOfBoundsException if there is no split at the index
+     * @since 2.0
+     */
+    public long getLapTime(int index) {
+        return getLapTimeNanos(index) / 1000000;
+    }
+
+    /**
+     * Returns a read only view of the splits. The view reflects later splits, and creates a new Split object every time an element is read.
+     *
+     * @return a random access list view of this buffer
+     * @since 2.0
+     */
+    public List<Split> asList() {
+        return view;
+    }
+
+    void add(long splitTime, long lapTime) {
+        if (limit > 0 && size == limit) {
+            // full ring, the capacity equals the limit so the oldest split is overwritten
+            splitTimes[head] = splitTime;
+            lapTimes[head] = lapTime;
+            if (++head == limit)
+                head = 0;
+            dropped++;
+            return;
+        }
+        if (size == splitTimes.length)
+            resize(limit == 0 ? size * 2 : Math.min(size * 2, limit));
+        int position = physical(size);
+        splitTimes[position] = splitTime;
+        lapTimes[position] = lapTime;
+        size++;
+    }
+
+    /**
+     * Bounds the buffer to hold at most the given number of splits, discarding the oldest ones if it holds more.
+     *
+     * @param limit the maximum number of splits to hold, 0 for no limit
+     */
+    void setLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Negative limit : " + limit);
+        if (limit > 0 && size > limit) {
+            int discard = size - limit;
+            head = physical(discard);
+            size = limit;
+            dropped += discard;
+        }
+        this.limit = limit;
+        if (limit > 0 && splitTimes.length > limit)
+            resize(limit);
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+        dropped = 0;
+    }
+
+    /**
+     * Copies the splits in order into arrays of the given capacity, moving the oldest split to the start.
+     */
+    private void resize(int capacity) {
+        long[] resizedSplits = new long[capacity];
+        long[] resizedLaps = new long[capacity];
+        int first = Math.min(size, splitTimes.length - head);
+        System.arraycopy(splitTimes, head, resizedSplits, 0, first);
+        System.arraycopy(lapTimes, head, resizedLaps, 0, first);
+        System.arraycopy(splitTimes, 0, resizedSplits, first, size - first);
+        System.arraycopy(lapTimes, 0, resizedLaps, first, size - first);
+        splitTimes = resizedSplits;
+        lapTimes = resizedLaps;
+        head = 0;
+    }
+
+    private int physical(int index) {
+        int position = head + index;
+        return position < splitTimes.length ? position : position - splitTimes.length;
+    }
+
+    private int position(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return physical(index);
+    }
+
+    private final class SplitList extends AbstractList<Split> implements RandomAccess {
+        @Override
+        public Split get(int index) {
+            return new Split(getSplitTimeNanos(index), getLapTimeNanos(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
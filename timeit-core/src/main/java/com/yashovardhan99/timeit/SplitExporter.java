@@ -0,0 +1,303 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams a range of splits as CSV or in a compact binary format, through a fixed size buffer which is reused for every export.
+ * No strings or split objects are created, so memory use does not depend on the number of splits exported.
+ * <p>
+ * The CSV format has a header line followed by one line per split : {@code split,split_time_ns,lap_time_ns}, where split is the number of the split since the stopwatch was started.
+ * <p>
+ * The binary format starts with the magic bytes "TIS1", followed by the number of splits, the number of the first split and the split time before the first lap.
+ * Then every lap time follows, each split time being the sum of the laps up to it. All numbers are unsigned LEB128 varints, so a lap usually takes 3 to 5 bytes.
+ * Use {@link #readBinary(InputStream, SplitVisitor)} to read it back.
+ * <p>
+ * An exporter is not thread safe, but can be reused for any number of exports.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see SplitBuffer
+ * @since 2.0
+ */
+public final class SplitExporter {
+
+    private static final byte[] CSV_HEADER = "split,split_time_ns,lap_time_ns\n".getBytes();
+    private static final byte[] MAGIC = {'T', 'I', 'S', '1'};
+    /**
+     * Room needed for the longest CSV line or varint group, so that a buffer is flushed before it can overflow.
+     */
+    private static final int MAX_ENTRY = 64;
+
+    private final byte[] bytes;
+    private final ByteBuffer byteBuffer;
+    private char[] chars;
+    private int length;
+
+    /**
+     * Creates an exporter with an 8 KiB buffer.
+     *
+     * @since 2.0
+     */
+    public SplitExporter() {
+        this(8192);
+    }
+
+    /**
+     * Creates an exporter with a buffer of the given size.
+     *
+     * @param bufferSize size of the buffer in bytes, at least 64
+     * @throws IllegalArgumentException if the buffer is too small
+     * @since 2.0
+     */
+    public SplitExporter(int bufferSize) {
+        if (bufferSize < MAX_ENTRY)
+            throw new IllegalArgumentException("Buffer too small : " + bufferSize);
+        bytes = new byte[bufferSize];
+        byteBuffer = ByteBuffer.wrap(bytes);
+        chars = null;
+        length = 0;
+    }
+
+    /**
+     * Writes the splits from index {@code from} (inclusive) to {@code to} (exclusive) as CSV.
+     *
+     * @param splits the splits to export
+     * @param from   index of the first split
+     * @param to     index after the last split
+     * @param out    the writer to write to. It is not flushed or closed.
+     * @throws IOException               if writing fails
+     * @throws IndexOutOfBoundsException if the range is not within the splits
+     * @since 2.0
+     */
+    public void writeCsv(SplitBuffer splits, int from, int to, Writer out) throws IOException {
+        if (chars == null)
+            chars = new char[bytes.length];
+        writeCsv(splits, from, to, out, null, null);
+    }
+
+    /**
+     * Writes the splits from index {@code from} (inclusive) to {@code to} (exclusive) as ASCII CSV.
+     *
+     * @param splits the splits to export
+     * @param from   index of the first split
+     * @param to     index after the last split
+     * @param out    the stream to write to. It is not flushed or closed.
+     * @throws IOException               if writing fails
+     * @throws IndexOutOfBoundsException if the range is not within the splits
+     * @since 2.0
+     */
+    public void writeCsv(SplitBuffer splits, int from, int to, OutputStream out) throws IOException {
+        writeCsv(splits, from, to, null, out, null);
+    }
+
+    /**
+     * Writes the splits from index {@code from} (inclusive) to {@code to} (exclusive) as ASCII CSV.
+     *
+     * @param splits the splits to export
+     * @param from   index of the first split
+     * @param to     index after the last split
+     * @param out    the channel to write to. It is not closed.
+     * @throws IOException               if writing fails
+     * @throws IndexOutOfBoundsException if the range is not within the splits
+     * @since 2.0
+     */
+    public void writeCsv(SplitBuffer splits, int from, int to, WritableByteChannel out) throws IOException {
+        writeCsv(splits, from, to, null, null, out);
+    }
+
+    /**
+     * Writes the splits from index {@code from} (inclusive) to {@code to} (exclusive) in the binary format.
+     *
+     * @param splits the splits to export
+     * @param from   index of the first split
+     * @param to     index after the last split
+     * @param out    the stream to write to. It is not flushed or closed.
+     * @throws IOException               if writing fails
+     * @throws IndexOutOfBoundsException if the range is not within the splits
+     * @since 2.0
+     */
+    public void writeBinary(SplitBuffer splits, int from, int to, OutputStream out) throws IOException {
+        writeBinary(splits, from, to, null, out, null);
+    }
+
+    /**
+     * Writes the splits from index {@code from} (inclusive) to {@code to} (exclusive) in the binary format.
+     *
+     * @param splits the splits to export
+     * @param from   index of the first split
+     * @param to     index after the last split
+     * @param out    the channel to write to. It is not closed.
+     * @throws IOException               if writing fails
+     * @throws IndexOutOfBoundsException if the range is not within the splits
+     * @since 2.0
+     */
+    public void writeBinary(SplitBuffer splits, int from, int to, WritableByteChannel out) throws IOException {
+        writeBinary(splits, from, to, null, null, out);
+    }
+
+    /**
+     * Reads splits written in the binary format, calling the visitor for every split in order.
+     *
+     * @param in      the stream to read from, which should be buffered. It is not closed.
+     * @param visitor the visitor to call for every split
+     * @throws IOException if reading fails or the stream is not in the binary format
+     * @since 2.0
+     */
+    public static void readBinary(InputStream in, SplitVisitor visitor) throws IOException {
+        for (byte magic : MAGIC) {
+            if (in.read() != magic)
+                throw new IOException("Not a TimeIt split export");
+        }
+        long count = readVarint(in);
+        long index = readVarint(in);
+        long splitTime = readVarint(in);
+        for (long i = 0; i < count; i++) {
+            long lapTime = readVarint(in);
+            splitTime += lapTime;
+            visitor.visit(index + i, splitTime, lapTime);
+        }
+    }
+
+    private void writeCsv(SplitBuffer splits, int from, int to, Writer writer, OutputStream stream, WritableByteChannel channel) throws IOException {
+        checkRange(splits, from, to);
+        System.arraycopy(CSV_HEADER, 0, bytes, 0, CSV_HEADER.length);
+        length = CSV_HEADER.length;
+        long first = splits.getDroppedCount();
+        for (int i = from; i < to; i++) {
+            if (length > bytes.length - MAX_ENTRY)
+                flush(writer, stream, channel);
+            putDecimal(first + i);
+            bytes[length++] = ',';
+            putDecimal(splits.getSplitTimeNanos(i));
+            bytes[length++] = ',';
+            putDecimal(splits.getLapTimeNanos(i));
+            bytes[length++] = '\n';
+        }
+        flush(writer, stream, channel);
+    }
+
+    private void writeBinary(SplitBuffer splits, int from, int to, Writer writer, OutputStream stream, WritableByteChannel channel) throws IOException {
+        checkRange(splits, from, to);
+        System.arraycopy(MAGIC, 0, bytes, 0, MAGIC.length);
+        length = MAGIC.length;
+        putVarint(to - from);
+        putVarint(splits.getDroppedCount() + from);
+        putVarint(from == to ? 0 : splits.getSplitTimeNanos(from) - splits.getLapTimeNanos(from));
+        for (int i = from; i < to; i++) {
+            if (length > bytes.length - MAX_ENTRY)
+                flush(writer, stream, channel);
+            putVarint(splits.getLapTimeNanos(i));
+        }
+        flush(writer, stream, channel);
+    }
+
+    private static void checkRange(SplitBuffer splits, int from, int to) {
+        if (from < 0 || to > splits.size() || from > to)
+            throw new IndexOutOfBoundsException("From : " + from + ", To : " + to + ", Size : " + splits.size());
+    }
+
+    private void flush(Writer writer, OutputStream stream, WritableByteChannel channel) throws IOException {
+        if (writer != null) {
+            for (int i = 0; i < length; i++)
+                chars[i] = (char) bytes[i];
+            writer.write(chars, 0, length);
+        } else if (stream != null) {
+            stream.write(bytes, 0, length);
+        } else {
+            byteBuffer.clear();
+            byteBuffer.limit(length);
+            while (byteBuffer.hasRemaining())
+                channel.write(byteBuffer);
+        }
+        length = 0;
+    }
+
+    /**
+     * Writes a value as decimal digits without leading zeroes.
+     */
+    private void putDecimal(long value) {
+        if (value < 0) {
+            bytes[length++] = '-';
+            if (value == Long.MIN_VALUE) {
+                // cannot be negated, write all but the last digit first
+                putDecimal(-(value / 10));
+                bytes[length++] = (byte) ('0' - value % 10);
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10)
+            digits++;
+        int pos = length + digits;
+        do {
+            bytes[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        length += digits;
+    }
+
+    /**
+     * Writes a value as an unsigned LEB128 varint, 7 bits per byte with the high bit set on all but the last byte.
+     */
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Receives the splits read from a binary export.
+     *
+     * @since 2.0
+     */
+    public interface SplitVisitor {
+        /**
+         * Called for every split in order.
+         *
+         * @param index     the number of the split since the stopwatch was started
+         * @param splitTime the split time in nanoseconds
+         * @param lapTime   the lap time in nanoseconds
+         * @since 2.0
+         */
+        void visit(long index, long splitTime, long lapTime);
+    }
+}
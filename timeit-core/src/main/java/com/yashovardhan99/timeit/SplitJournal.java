@@ -0,0 +1,275 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An append-only journal of the events of a stopwatch or timer, kept in a memory-mapped file so that a session survives the process dying.
+ * Appending an event is a few stores into the mapped memory, the operating system writes it to the file even if the process is killed. Call {@link #sync()} to also survive a power loss.
+ * <p>
+ * The file starts with a 32 byte header followed by 32 byte records, all little endian :
+ * <pre>
+ * header : int magic ("TIJ1"), int version, int record size, int session, 16 bytes reserved
+ * record : int type, int session, long elapsed time (ns), long wall clock time (ms), long value
+ * </pre>
+ * Every start begins a new session from the first record, so the file only grows with the longest session. Records of older sessions left after the end of the current one are told apart by their session number.
+ * The type of a record is cleared first and written last, so a record which was only partly written when the process died is never read, even when it overwrites a record of an older session.
+ * <p>
+ * This class is not thread safe, events must be appended from the thread controlling the stopwatch.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#setJournal(SplitJournal)
+ * @see Timer#setJournal(SplitJournal)
+ * @since 2.0
+ */
+public final class SplitJournal implements Closeable {
+
+    static final int START = 1;
+    static final int PAUSE = 2;
+    static final int RESUME = 3;
+    static final int SPLIT = 4;
+    static final int STOP = 5;
+    /**
+     * The duration of a timer, stored in the value.
+     */
+    static final int DURATION = 6;
+
+    private static final int MAGIC = 0x54494A31;
+    private static final int VERSION = 1;
+    private static final int RECORD_SIZE = 32;
+    private static final int SESSION_OFFSET = 12;
+    private static final int INITIAL_RECORDS = 2048;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int session;
+    /**
+     * Offset at which the next record is written.
+     */
+    private int position;
+
+    private SplitJournal(RandomAccessFile file) throws IOException {
+        this.file = file;
+        channel = file.getChannel();
+        long length = channel.size();
+        map(Math.max(length, RECORD_SIZE * (INITIAL_RECORDS + 1)));
+        if (length == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(SESSION_OFFSET, 0);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Not a TimeIt journal");
+        }
+        session = buffer.getInt(SESSION_OFFSET);
+        position = RECORD_SIZE;
+        while (position < buffer.capacity() && isValid(position))
+            position += RECORD_SIZE;
+    }
+
+    /**
+     * Opens a journal, creating the file if it does not exist.
+     * Events of the last session in an existing journal can be restored with {@link #recover(Stopwatch)} or {@link #recover(Timer)}.
+     *
+     * @param file the journal file
+     * @return the opened journal
+     * @throws IOException if the file cannot be opened or is not a journal
+     * @since 2.0
+     */
+    public static SplitJournal open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            return new SplitJournal(randomAccessFile);
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of events recorded in the current session.
+     *
+     * @return the number of events since the last start
+     * @since 2.0
+     */
+    public int size() {
+        return position / RECORD_SIZE - 1;
+    }
+
+    /**
+     * Restores a stopwatch to the state recorded in the last session, including all of its splits, and journals its further events here.
+     * A stopwatch which was running when the process died is resumed as if it had kept running, using the wall clock to measure the time in between.
+     * Replaying takes time linear in the size of the session.
+     *
+     * @param stopwatch a stopwatch which has not been started
+     * @throws IllegalStateException if the stopwatch has already been started
+     * @since 2.0
+     */
+    public void recover(Stopwatch stopwatch) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> recover(stopwatch));
+            return;
+        }
+        if (stopwatch.isStarted())
+            throw new IllegalStateException("Already Started");
+        replay(stopwatch);
+        stopwatch.setJournal(this);
+    }
+
+    /**
+     * Restores a timer to the state recorded in the last session and journals its further events here.
+     * A timer which was running when the process died is resumed as if it had kept running, and completes right away if its duration has passed in the meantime.
+     *
+     * @param timer a timer which has not been started
+     * @throws IllegalStateException if the timer has already been started
+     * @since 2.0
+     */
+    public void recover(Timer timer) {
+        TickScheduler scheduler = timer.getStopwatch().getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> recover(timer));
+            return;
+        }
+        if (timer.isStarted())
+            throw new IllegalStateException("Already Started");
+        long duration = replay(timer.getStopwatch());
+        if (duration > 0)
+            timer.setDuration(duration);
+        timer.setJournal(this);
+        timer.restored();
+    }
+
+    /**
+     * Forces all recorded events to be written to the storage device.
+     *
+     * @since 2.0
+     */
+    public void sync() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * Appends an event. A start begins a new session.
+     *
+     * @param type    the type of the event
+     * @param elapsed the elapsed time of the stopwatch in nanoseconds
+     * @param value   a value depending on the type, such as the lap time of a split
+     */
+    void append(int type, long elapsed, long value) {
+        if (type == START) {
+            session++;
+            buffer.putInt(SESSION_OFFSET, session);
+            position = RECORD_SIZE;
+        }
+        if (position + RECORD_SIZE > buffer.capacity()) {
+            try {
+                map((long) buffer.capacity() * 2);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot grow journal", e);
+            }
+        }
+        // the slot may still hold a record of an older session, clear its type before reusing it
+        buffer.putInt(position, 0);
+        buffer.putInt(position + 4, session);
+        buffer.putLong(position + 8, elapsed);
+        buffer.putLong(position + 16, System.currentTimeMillis());
+        buffer.putLong(position + 24, value);
+        buffer.putInt(position, type);
+        position += RECORD_SIZE;
+    }
+
+    /**
+     * Replays the current session into a stopwatch.
+     *
+     * @return the last duration recorded, 0 if there is none
+     */
+    private long replay(Stopwatch stopwatch) {
+        long duration = 0, start = 0, elapsed = 0, lastSplit = 0, wall = 0;
+        boolean started = false, paused = false;
+        for (int offset = RECORD_SIZE; offset < position; offset += RECORD_SIZE) {
+            int type = buffer.getInt(offset);
+            long recorded = buffer.getLong(offset + 8);
+            wall = buffer.getLong(offset + 16);
+            long value = buffer.getLong(offset + 24);
+            switch (type) {
+                case START:
+                    started = true;
+                    paused = false;
+                    start = wall;
+                    elapsed = 0;
+                    lastSplit = 0;
+                    stopwatch.restoreStart();
+                    break;
+                case PAUSE:
+                    paused = true;
+                    elapsed = recorded;
+                    break;
+                case RESUME:
+                    paused = false;
+                    elapsed = recorded;
+                    break;
+                case SPLIT:
+                    elapsed = recorded;
+                    lastSplit = recorded;
+                    stopwatch.restoreSplit(recorded, value);
+                    break;
+                case STOP:
+                    started = false;
+                    paused = false;
+                    elapsed = recorded;
+                    break;
+                case DURATION:
+                    // every record carries the elapsed time at its wall clock time, which later records are measured from
+                    elapsed = recorded;
+                    duration = value;
+                    break;
+            }
+        }
+        if (started && !paused)
+            // the stopwatch kept running while the process was dead
+            elapsed += Math.max(0, System.currentTimeMillis() - wall) * 1000000;
+        stopwatch.restore(start, elapsed, elapsed - lastSplit, started, paused);
+        return duration;
+    }
+
+    private boolean isValid(int offset) {
+        return buffer.getInt(offset) != 0 && buffer.getInt(offset + 4) == session;
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
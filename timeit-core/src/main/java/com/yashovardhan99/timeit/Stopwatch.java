@@ -0,0 +1,1041 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The Stopwatch class is used for creating and using a simple stopwatch with basic features like : start, pause, resume and split.
+ * It allows you to set a display and automatically updates it every 0.1 seconds (or as set by you).
+ * You can also implement the custom OnTickListener to listen for time changes every time period, and add an OnSplitListener to be told of every split as it happens.
+ * Threading on a separate thread is handled by the class itself. You just need to call appropriate methods to control the stopwatch.
+ * Its state only changes on the thread of its {@link TickScheduler}, where it ticks : a method called on any other thread is run on that thread and waits for it to complete, so ticks never race with the thread controlling the stopwatch.
+ * <p>
+ * The stopwatch only wakes up for what is observed : it ticks every clock delay while it has a listener or debug logs, updates a display on its own only when its text changes, and schedules nothing at all otherwise.
+ * Listeners added with their own period wake it only when one of them is due.
+ * The elapsed time is always read from the clock, so an unobserved stopwatch costs no CPU while it runs.
+ * <p>
+ * This class does not depend on Android. On Android, use AndroidStopwatch from the timeit module which ticks on the main thread and can update a TextView.
+ * <p>
+ * Created by Yashovardhan99 on 8/12/18 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @version 2.0
+ * @see java.lang.Runnable
+ * @see TickScheduler
+ */
+public class Stopwatch {
+    private static final Logger LOG = Logger.getLogger("STOPWATCH");
+    private static final OnSplitListener[] NO_SPLIT_LISTENERS = new OnSplitListener[0];
+    private static final PeriodicListener[] NO_PERIODIC_LISTENERS = new PeriodicListener[0];
+    private static final int STATUS_SHIFT = 62;
+    private static final long VALUE_MASK = (1L << STATUS_SHIFT) - 1;
+    private static final long STOPPED = 0;
+    private static final long RUNNING = 2;
+    private static final long PAUSED = 3;
+
+    private final SplitBuffer splits;
+    private final LapStatistics lapStatistics;
+    private LatencyHistogram lapHistogram;
+    private SplitJournal journal;
+    private TickStats tickStats;
+    private TimeDisplay display;
+    private long start;
+    /**
+     * The status in the top two bits and, depending on the status, either the elapsed time or the time at which the stopwatch would have been started had it never been paused, relative to the origin.
+     * It is only written on the scheduler's thread, but packed into a single volatile word so that the elapsed time can be read from any thread without tearing.
+     */
+    private volatile long state;
+    /**
+     * Reading of the time source when the stopwatch was created.
+     */
+    private final long origin;
+    /**
+     * The elapsed time in nanoseconds at the last split.
+     */
+    private long lastSplit;
+    private final TimeSource timeSource;
+    private boolean logEnabled;
+    private OnTickListener onTickListener;
+    /**
+     * Replaced by a copy whenever a listener is added or removed, so that firing an event neither allocates nor breaks when a listener removes itself.
+     */
+    private OnSplitListener[] splitListeners;
+    /**
+     * Tick listeners with their own period, replaced by a copy whenever one is added or removed.
+     */
+    private PeriodicListener[] periodicListeners;
+    private boolean tickingListeners;
+    private long clockDelay;
+    private TickScheduler scheduler;
+    private final DisplayBinding binding = new DisplayBinding();
+
+    /**
+     * The runnable used to call the thread.
+     *
+     * @since 1.1
+     */
+    private final Runnable runnable = this::run;
+
+    /**
+     * The registration of the runnable with the tick scheduler.
+     *
+     * @since 2.0
+     */
+    private final TickScheduler.Registration registration = new TickScheduler.Registration(runnable);
+
+    /**
+     * Updates the display when its text changes, used instead of ticking when the display is the only observer.
+     *
+     * @since 2.0
+     */
+    private final TimingWheel.Timeout displayUpdate = new TimingWheel.Timeout(this::updateDisplay);
+
+    /**
+     * Wakes up at the earliest deadline of the tick listeners added with a period.
+     *
+     * @since 2.0
+     */
+    private final TimingWheel.Timeout periodicTick = new TimingWheel.Timeout(this::tickListeners);
+
+    /**
+     * The default constructor should be called to create an object to call functions accordingly.
+     * Time is measured with {@link TimeSource#SYSTEM} and the stopwatch ticks on the {@link ExecutorTickScheduler#getDefault() default scheduler}.
+     *
+     * @since 1.0
+     */
+    public Stopwatch() {
+        this(TimeSource.SYSTEM);
+    }
+
+    /**
+     * Creates a stopwatch which measures time with the given time source and ticks on the default scheduler.
+     *
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @see TimeSource
+     * @since 2.0
+     */
+    public Stopwatch(TimeSource timeSource) {
+        this(timeSource, ExecutorTickScheduler.getDefault());
+    }
+
+    /**
+     * Creates a stopwatch which measures time with the given time source and ticks on the given scheduler.
+     *
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @param scheduler  the scheduler which drives the clock of this stopwatch
+     * @see TimeSource
+     * @see TickScheduler
+     * @since 2.0
+     */
+    public Stopwatch(TimeSource timeSource, TickScheduler scheduler) {
+        this.timeSource = timeSource;
+        start = System.currentTimeMillis();
+        origin = timeSource.nanoTime();
+        state = pack(STOPPED, 0);
+        lastSplit = 0;
+        logEnabled = false;
+        splits = new SplitBuffer();
+        lapStatistics = new LapStatistics();
+        lapHistogram = null;
+        journal = null;
+        tickStats = null;
+        display = null;
+        onTickListener = null;
+        splitListeners = NO_SPLIT_LISTENERS;
+        periodicListeners = NO_PERIODIC_LISTENERS;
+        tickingListeners = false;
+        clockDelay = 100;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Formats time in either of the following formats depending on time passed - SS.ss, MM:SS.ss, HH:MM:SS.
+     * This allocates a new String on every call, the tick path uses a reusable {@link TimeFormatter} instead.
+     *
+     * @param elapsedTime time in milliseconds which has to be formatted
+     * @return formatted time in String form
+     * @see TimeFormatter
+     * @since 1.1
+     */
+    static String getFormattedTime(long elapsedTime) {
+        return new TimeFormatter().format(elapsedTime).toString();
+    }
+
+    private static long pack(long status, long value) {
+        return status << STATUS_SHIFT | value & VALUE_MASK;
+    }
+
+    private static long status(long state) {
+        return state >>> STATUS_SHIFT;
+    }
+
+    /**
+     * Computes the elapsed time held by a state word.
+     *
+     * @param state a state word
+     * @param now   a reading of the time source
+     * @return the elapsed time in nanoseconds
+     */
+    private long elapsed(long state, long now) {
+        // the value is sign extended, the virtual start of a restored stopwatch may be before the origin
+        long value = state << (64 - STATUS_SHIFT) >> (64 - STATUS_SHIFT);
+        return status(state) == RUNNING ? now - origin - value : value;
+    }
+
+    private boolean isRunning() {
+        return status(state) == RUNNING;
+    }
+
+    /**
+     * Returns true if the stopwatch has started
+     *
+     * @return true if the stopwatch has been started by calling start(). False otherwise
+     * @since 1.0
+     */
+    public boolean isStarted() {
+        return status(state) != STOPPED;
+    }
+
+    /**
+     * Returns true if the stopwatch is paused
+     *
+     * @return true if the stopwatch is paused. False otherwise
+     * @since 1.0
+     */
+    public boolean isPaused() {
+        return status(state) == PAUSED;
+    }
+
+    /**
+     * Gets the current elapsed time the stopwatch has been running for in milliseconds
+     * It is read from the clock, so it is exact even if the stopwatch has not ticked since, and can be read on any thread.
+     *
+     * @return the time in milliseconds the stopwatch has been running for.
+     * @since 1.0
+     */
+    public long getElapsedTime() {
+        return readElapsedTimeNanos() / 1000000;
+    }
+
+    /**
+     * Gets the current elapsed time the stopwatch has been running for in nanoseconds
+     * It is read from the clock, so it is exact even if the stopwatch has not ticked since, and can be read on any thread.
+     *
+     * @return the time in nanoseconds the stopwatch has been running for.
+     * @since 2.0
+     */
+    public long getElapsedTimeNanos() {
+        return readElapsedTimeNanos();
+    }
+
+    /**
+     * Reads the elapsed time from the time source, so that it is exact even if the stopwatch has not ticked since.
+     * The state is read in a single volatile read, so this is safe on any thread.
+     *
+     * @return the exact time in nanoseconds the stopwatch has been running for.
+     * @since 2.0
+     */
+    long readElapsedTimeNanos() {
+        long state = this.state;
+        return elapsed(state, timeSource.nanoTime());
+    }
+
+    /**
+     * Returns the clock time (in milliseconds) when the stopwatch was started.
+     * This is wall clock time as returned by {@link System#currentTimeMillis()} and is not used to measure elapsed time.
+     *
+     * @return time when the stopwatch was started in milliseconds.
+     * @since 1.0
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get a list of all splits that have been created.
+     * The list is a copy which is not updated by later splits, and changing it does not change the stopwatch.
+     *
+     * @return all splits created with split method.
+     * @see Split
+     * @since 1.0
+     * @deprecated Copies every split into a new list. Use {@link #getSplitBuffer()} to read splits by index without allocating, or its {@link SplitBuffer#asList() list view}.
+     */
+    @Deprecated
+    public LinkedList<Split> getSplits() {
+        return new LinkedList<>(splits.asList());
+    }
+
+    /**
+     * Get the buffer holding all splits that have been created.
+     * Splits can be read from it by index in constant time and without allocating.
+     *
+     * @return the splits created with split method.
+     * @see SplitBuffer
+     * @since 2.0
+     */
+    public SplitBuffer getSplitBuffer() {
+        return splits;
+    }
+
+    /**
+     * Keep only the latest splits instead of every split since the stopwatch was started.
+     * Older splits are discarded as new ones are recorded so memory use stays flat no matter how long the stopwatch runs.
+     * Lap statistics still cover every lap.
+     *
+     * @param limit the maximum number of splits to keep, 0 to keep every split (default : 0)
+     * @throws IllegalArgumentException if the limit is negative
+     * @see SplitBuffer#getDroppedCount()
+     * @since 2.0
+     */
+    public void setSplitHistoryLimit(int limit) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setSplitHistoryLimit(limit));
+            return;
+        }
+        splits.setLimit(limit);
+    }
+
+    /**
+     * Get the running statistics of all laps since the stopwatch was started.
+     * They are updated on every split, reading them does not walk the split history.
+     *
+     * @return the lap statistics of this stopwatch
+     * @see LapStatistics
+     * @since 2.0
+     */
+    public LapStatistics getLapStatistics() {
+        return lapStatistics;
+    }
+
+    /**
+     * Set a histogram which records the lap time of every split in nanoseconds.
+     * The histogram is not cleared when the stopwatch is started, so it can collect laps over several runs or be shared by several stopwatches on the same thread.
+     *
+     * @param lapHistogram the histogram to record laps in. Can be null.
+     * @see LatencyHistogram#getValueAtPercentile(double)
+     * @since 2.0
+     */
+    public void setLapHistogram(LatencyHistogram lapHistogram) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setLapHistogram(lapHistogram));
+            return;
+        }
+        this.lapHistogram = lapHistogram;
+    }
+
+    /**
+     * Set a journal which records every start, pause, resume, split and stop so that the session can be recovered if the process dies.
+     *
+     * @param journal the journal to record events in. Can be null.
+     * @see SplitJournal#recover(Stopwatch)
+     * @since 2.0
+     */
+    public void setJournal(SplitJournal journal) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setJournal(journal));
+            return;
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the journal which records the events of this stopwatch.
+     *
+     * @return the journal, or null if none is set
+     * @since 2.0
+     */
+    public SplitJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Set stats which measure how late every tick runs and how long its listeners take.
+     * The ticks at the clock delay, the ticks of listeners added with a period and the updates of a display without any listener are all recorded.
+     *
+     * @param tickStats the stats to record ticks in, or null to stop measuring (default : null)
+     * @see TickStats
+     * @since 2.0
+     */
+    public void setTickStats(TickStats tickStats) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setTickStats(tickStats));
+            return;
+        }
+        this.tickStats = tickStats;
+    }
+
+    /**
+     * Returns the stats which measure the ticks of this stopwatch.
+     *
+     * @return the tick stats, or null if none are set
+     * @since 2.0
+     */
+    public TickStats getTickStats() {
+        return tickStats;
+    }
+
+    /**
+     * Returns the histogram which records lap times.
+     *
+     * @return the lap histogram, or null if none is set
+     * @since 2.0
+     */
+    public LatencyHistogram getLapHistogram() {
+        return lapHistogram;
+    }
+
+    /**
+     * Returns the currently set clock delay
+     *
+     * @return currently set clock delay in milliseconds (default: 100ms)
+     * @since 1.0
+     */
+    public long getClockDelay() {
+        return clockDelay;
+    }
+
+    /**
+     * Set a custom clock delay to increase/decrease update frequency.
+     * Clock delay is the delay in between each successive clock update.
+     *
+     * @param clockDelay clock delay in milliseconds (default : 100ms)
+     * @since 1.0
+     */
+    public void setClockDelay(long clockDelay) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setClockDelay(clockDelay));
+            return;
+        }
+        this.clockDelay = clockDelay;
+        updateScheduling();
+    }
+
+    /**
+     * Set the scheduler which drives the clock of this stopwatch.
+     * Stopwatches sharing a scheduler tick together.
+     *
+     * @param scheduler the scheduler to tick with
+     * @throws IllegalStateException if the stopwatch has already been started.
+     * @since 2.0
+     */
+    public void setTickScheduler(TickScheduler scheduler) {
+        if (!this.scheduler.isDispatchThread()) {
+            this.scheduler.invoke(() -> setTickScheduler(scheduler));
+            return;
+        }
+        if (isStarted())
+            throw new IllegalStateException("Already Started");
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns the scheduler which drives the clock of this stopwatch.
+     *
+     * @return the scheduler this stopwatch ticks with
+     * @since 2.0
+     */
+    TickScheduler getTickScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Set whether to print debug logs or not. If enabled, it will log each time the time is updated.
+     *
+     * @param debugMode desired debugging status
+     * @since 1.0
+     */
+    public void setDebugMode(boolean debugMode) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setDebugMode(debugMode));
+            return;
+        }
+        logEnabled = debugMode;
+        updateScheduling();
+    }
+
+    /**
+     * Allows you to set a display where the stopwatch time is shown.
+     * If not provided, or set to null, you need to manually display the time.
+     * The display is updated on the scheduler's thread, and only when the shown text changes.
+     *
+     * @param display the display where you want to show the stopwatch time. Can be null.
+     * @since 2.0
+     */
+    public void setDisplay(TimeDisplay display) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setDisplay(display));
+            return;
+        }
+        this.display = display;
+        binding.invalidate();
+        updateScheduling();
+    }
+
+    /**
+     * Set an OnTickListener to listen for clock changes.
+     *
+     * @param onTickListener a reference to the interface implementation.
+     * @since 1.0
+     */
+    public void setOnTickListener(OnTickListener onTickListener) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setOnTickListener(onTickListener));
+            return;
+        }
+        this.onTickListener = onTickListener;
+        updateScheduling();
+    }
+
+    /**
+     * Add a listener which is called every period while the stopwatch is running, independently of the clock delay and of the listener set with {@link #setOnTickListener(OnTickListener)}.
+     * Every listener keeps its own deadlines, aligned to when the stopwatch was started or resumed, and the stopwatch only wakes up when the earliest of them is due to call the listeners which are due.
+     * For example a display can be updated at 30 Hz, statistics sampled every second and a checkpoint saved every 10 seconds from the same stopwatch.
+     *
+     * @param listener the listener to add. Adding a listener twice makes it tick twice.
+     * @param period   the delay between ticks of this listener in milliseconds
+     * @throws IllegalArgumentException if the period is not positive
+     * @see #removeOnTickListener(OnTickListener)
+     * @since 2.0
+     */
+    public void addOnTickListener(OnTickListener listener, long period) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> addOnTickListener(listener, period));
+            return;
+        }
+        if (listener == null)
+            throw new NullPointerException("listener == null");
+        if (period <= 0)
+            throw new IllegalArgumentException("Period must be positive : " + period);
+        PeriodicListener added = new PeriodicListener(listener, period * 1000000);
+        PeriodicListener[] listeners = Arrays.copyOf(periodicListeners, periodicListeners.length + 1);
+        listeners[periodicListeners.length] = added;
+        periodicListeners = listeners;
+        if (periodicTick.isScheduled() || tickingListeners) {
+            added.deadline = timeSource.nanoTime() + added.period;
+            if (!tickingListeners)
+                scheduleListeners();
+        } else
+            updateScheduling();
+    }
+
+    /**
+     * Remove a listener added with {@link #addOnTickListener(OnTickListener, long)}.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was removed, false if it was not added
+     * @since 2.0
+     */
+    public boolean removeOnTickListener(OnTickListener listener) {
+        if (!scheduler.isDispatchThread()) {
+            boolean[] removed = new boolean[1];
+            scheduler.invoke(() -> removed[0] = removeOnTickListener(listener));
+            return removed[0];
+        }
+        PeriodicListener[] listeners = periodicListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].listener == listener) {
+                PeriodicListener[] remaining = new PeriodicListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                periodicListeners = remaining;
+                if (remaining.length > 0 && periodicTick.isScheduled())
+                    scheduleListeners();
+                else
+                    updateScheduling();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a listener which is told of every split and of the stopwatch being started, paused, resumed and stopped.
+     * Events are passed as primitive values so that a split can be shown by appending a single row, without reading the split history again.
+     *
+     * @param listener the listener to add. Adding a listener twice makes it receive every event twice.
+     * @see #removeOnSplitListener(OnSplitListener)
+     * @since 2.0
+     */
+    public void addOnSplitListener(OnSplitListener listener) {
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> addOnSplitListener(listener));
+            return;
+        }
+        if (listener == null)
+            throw new NullPointerException("listener == null");
+        OnSplitListener[] listeners = Arrays.copyOf(splitListeners, splitListeners.length + 1);
+        listeners[splitListeners.length] = listener;
+        splitListeners = listeners;
+    }
+
+    /**
+     * Remove a listener added with {@link #addOnSplitListener(OnSplitListener)}.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was removed, false if it was not added
+     * @since 2.0
+     */
+    public boolean removeOnSplitListener(OnSplitListener listener) {
+        if (!scheduler.isDispatchThread()) {
+            boolean[] removed = new boolean[1];
+            scheduler.invoke(() -> removed[0] = removeOnSplitListener(listener));
+            return removed[0];
+        }
+        OnSplitListener[] listeners = splitListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                OnSplitListener[] remaining = new OnSplitListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                splitListeners = remaining;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts the stopwatch at the current time. Cannot be called again without calling stop() first.
+     *
+     * @throws IllegalStateException if the stopwatch has already been started.
+     * @see #stop()
+     * @see #isStarted()
+     * @since 1.0
+     */
+    public void start() {
+        long now = timeSource.nanoTime();
+        if (scheduler.isDispatchThread())
+            start(now);
+        else
+            scheduler.invoke(() -> start(now));
+    }
+
+    private void start(long now) {
+        if (isStarted())
+            throw new IllegalStateException("Already Started");
+        else {
+            state = pack(RUNNING, now - origin);
+            start = System.currentTimeMillis();
+            lastSplit = 0;
+            splits.clear();
+            lapStatistics.clear();
+            if (journal != null)
+                journal.append(SplitJournal.START, 0, 0);
+            updateScheduling();
+            for (OnSplitListener listener : splitListeners)
+                listener.onStart(start);
+        }
+    }
+
+    /**
+     * Stops the stopwatch. Stopwatch cannot be resumed from current time later.
+     *
+     * @throws IllegalStateException if stopwatch has not been started yet.
+     * @see #start()
+     * @see #isStarted()
+     * @since 1.0
+     */
+    public void stop() {
+        long now = timeSource.nanoTime();
+        if (scheduler.isDispatchThread())
+            stop(now);
+        else
+            scheduler.invoke(() -> stop(now));
+    }
+
+    private void stop(long now) {
+        if (!isStarted())
+            throw new IllegalStateException("Not Started");
+        else {
+            long elapsedTime = elapsed(state, now);
+            state = pack(STOPPED, elapsedTime);
+            if (journal != null)
+                journal.append(SplitJournal.STOP, elapsedTime, 0);
+            updateScheduling();
+            for (OnSplitListener listener : splitListeners)
+                listener.onStop(elapsedTime);
+        }
+    }
+
+    /**
+     * Pauses the stopwatch. Using this allows you to resume the stopwatch from the current state.
+     *
+     * @throws IllegalStateException if stopwatch is already paused or not started yet.
+     * @see #resume()
+     * @see #isPaused()
+     * @since 1.0
+     */
+    public void pause() {
+        long now = timeSource.nanoTime();
+        if (scheduler.isDispatchThread())
+            pause(now);
+        else
+            scheduler.invoke(() -> pause(now));
+    }
+
+    private void pause(long now) {
+        if (isPaused())
+            throw new IllegalStateException("Already Paused");
+        else if (!isStarted())
+            throw new IllegalStateException("Not Started");
+        else {
+            long elapsedTime = elapsed(state, now);
+            state = pack(PAUSED, elapsedTime);
+            if (journal != null)
+                journal.append(SplitJournal.PAUSE, elapsedTime, 0);
+            updateScheduling();
+            for (OnSplitListener listener : splitListeners)
+                listener.onPause(elapsedTime);
+        }
+    }
+
+    /**
+     * Used to resume the stopwatch from the current time after being paused.
+     *
+     * @throws IllegalStateException if stopwatch is not paused or not started yet.
+     * @see #pause()
+     * @see #isPaused()
+     * @since 1.0
+     */
+    public void resume() {
+        long now = timeSource.nanoTime();
+        if (scheduler.isDispatchThread())
+            resume(now);
+        else
+            scheduler.invoke(() -> resume(now));
+    }
+
+    private void resume(long now) {
+        if (!isPaused())
+            throw new IllegalStateException("Not Paused");
+        else if (!isStarted())
+            throw new IllegalStateException("Not Started");
+        else {
+            long elapsedTime = elapsed(state, now);
+            state = pack(RUNNING, now - origin - elapsedTime);
+            if (journal != null)
+                journal.append(SplitJournal.RESUME, elapsedTime, 0);
+            updateScheduling();
+            for (OnSplitListener listener : splitListeners)
+                listener.onResume(elapsedTime);
+        }
+    }
+
+    /**
+     * Creates a new split/lap at the current time. Can even be called when stopwatch is paused.
+     * The split is taken at the exact time of this call and not at the last clock tick.
+     *
+     * @throws IllegalStateException if stopwatch is not started yet
+     * @see #getSplitBuffer()
+     * @since 1.0
+     */
+    public void split() {
+        long now = timeSource.nanoTime();
+        if (scheduler.isDispatchThread())
+            split(now);
+        else
+            scheduler.invoke(() -> split(now));
+    }
+
+    private void split(long now) {
+        if (!isStarted())
+            throw new IllegalStateException("Not Started");
+        long splitTime = elapsed(state, now);
+        long lap = splitTime - lastSplit;
+        if (logEnabled)
+            LOG.info("split at " + splitTime / 1000000 + ". Lap = " + lap / 1000000);
+        if (journal != null)
+            journal.append(SplitJournal.SPLIT, splitTime, lap);
+        restoreSplit(splitTime, lap);
+        long index = splits.getDroppedCount() + splits.size() - 1;
+        lastSplit = splitTime;
+        for (OnSplitListener listener : splitListeners)
+            listener.onSplit(index, splitTime, lap);
+    }
+
+
+    /**
+     * Records a split without reading the clock, also used to replay a journal.
+     *
+     * @param splitTime the split time in nanoseconds
+     * @param lapTime   the lap time in nanoseconds
+     * @since 2.0
+     */
+    void restoreSplit(long splitTime, long lapTime) {
+        splits.add(splitTime, lapTime);
+        lapStatistics.add(lapTime);
+        if (lapHistogram != null)
+            lapHistogram.record(lapTime);
+    }
+
+    /**
+     * Clears the splits of an earlier session while replaying a journal.
+     *
+     * @since 2.0
+     */
+    void restoreStart() {
+        splits.clear();
+        lapStatistics.clear();
+    }
+
+    /**
+     * Restores the state of the stopwatch after replaying a journal.
+     *
+     * @param start       the wall clock time in milliseconds when the stopwatch was started
+     * @param elapsedTime the elapsed time in nanoseconds
+     * @param lapTime     the time in nanoseconds since the last split
+     * @param started     whether the stopwatch is started
+     * @param paused      whether the stopwatch is paused
+     * @since 2.0
+     */
+    void restore(long start, long elapsedTime, long lapTime, boolean started, boolean paused) {
+        this.start = start;
+        lastSplit = elapsedTime - lapTime;
+        if (!started)
+            state = pack(STOPPED, elapsedTime);
+        else if (paused)
+            state = pack(PAUSED, elapsedTime);
+        else
+            state = pack(RUNNING, timeSource.nanoTime() - origin - elapsedTime);
+        updateScheduling();
+    }
+
+    /**
+     * Registers with the scheduler only for what is observed while the stopwatch is running.
+     * Ticks are only needed for the listener and debug logs. A display on its own is updated when its text changes, and without any observer nothing is scheduled at all since the elapsed time is read from the clock on demand.
+     * Listeners with their own period are woken up separately at their earliest deadline.
+     *
+     * @since 2.0
+     */
+    private void updateScheduling() {
+        boolean running = isRunning();
+        if (running && periodicListeners.length > 0) {
+            if (!periodicTick.isScheduled() && !tickingListeners) {
+                long now = timeSource.nanoTime();
+                for (PeriodicListener listener : periodicListeners)
+                    listener.deadline = now + listener.period;
+                scheduleListeners();
+            }
+        } else
+            scheduler.cancel(periodicTick);
+
+        if (running && (onTickListener != null || logEnabled))
+            scheduler.schedule(registration, clockDelay);
+        else
+            scheduler.cancel(registration);
+
+        if (running && display != null && !registration.isScheduled()) {
+            if (!displayUpdate.isScheduled())
+                scheduler.schedule(displayUpdate, 0);
+        } else
+            scheduler.cancel(displayUpdate);
+    }
+
+    /**
+     * Shows the current time and schedules the next update for when the text changes, but not sooner than the clock delay.
+     *
+     * @since 2.0
+     */
+    private void updateDisplay() {
+        TickStats stats = tickStats;
+        long start = stats == null ? 0 : scheduler.getTimeSource().nanoTime();
+        long elapsed = readElapsedTimeNanos();
+        long shown = elapsed / 1000000;
+        binding.render(display, shown);
+        // a display update has no fixed period, so it is never counted as skipping ticks
+        if (stats != null)
+            stats.record(start - displayUpdate.getDeadline(), 0, scheduler.getTimeSource().nanoTime() - start);
+        long change = DisplayBinding.nextChange(shown, false) * 1000000 - elapsed;
+        scheduler.schedule(displayUpdate, Math.max(change, clockDelay * 1000000));
+    }
+
+    /**
+     * Wakes up at the earliest deadline of the listeners added with a period.
+     *
+     * @since 2.0
+     */
+    private void scheduleListeners() {
+        long next = Long.MAX_VALUE;
+        for (PeriodicListener listener : periodicListeners)
+            next = Math.min(next, listener.deadline);
+        scheduler.schedule(periodicTick, Math.max(0, next - timeSource.nanoTime()));
+    }
+
+    /**
+     * Calls the listeners added with a period which are due, then sleeps until the next one is.
+     *
+     * @since 2.0
+     */
+    private void tickListeners() {
+        if (!isRunning())
+            return;
+        long now = timeSource.nanoTime();
+        PeriodicListener[] listeners = periodicListeners;
+        PeriodicListener earliest = null;
+        long deadline = Long.MAX_VALUE;
+        tickingListeners = true;
+        try {
+            for (PeriodicListener listener : listeners) {
+                if (listener.deadline <= now) {
+                    if (listener.deadline < deadline) {
+                        earliest = listener;
+                        deadline = listener.deadline;
+                    }
+                    listener.advance(now);
+                    listener.listener.onTick(this);
+                }
+            }
+        } finally {
+            tickingListeners = false;
+        }
+        TickStats stats = tickStats;
+        if (stats != null && earliest != null)
+            stats.record(now - deadline, earliest.period, timeSource.nanoTime() - now);
+        if (isRunning() && periodicListeners.length > 0 && !periodicTick.isScheduled())
+            scheduleListeners();
+    }
+
+    /**
+     * The main thread responsible for updating and displaying the time
+     *
+     * @since 1.1
+     */
+    private void run() {
+        if (!isRunning()) {
+            scheduler.cancel(registration);
+            return;
+        }
+        TickStats stats = tickStats;
+        long lateness = stats == null ? 0 : scheduler.getTimeSource().nanoTime() - scheduler.getTickDeadline();
+        long now = timeSource.nanoTime();
+        long elapsedTime = elapsed(state, now);
+
+        if (logEnabled)
+            LOG.info(elapsedTime / 1000000000 + " seconds, " + elapsedTime / 1000000 % 1000 + " milliseconds");
+
+        if (onTickListener != null)
+            onTickListener.onTick(this);
+
+        binding.render(display, elapsedTime / 1000000);
+
+        if (stats != null)
+            stats.record(lateness, clockDelay * 1000000, timeSource.nanoTime() - now);
+    }
+
+    /**
+     * Interface to listen for stopwatch tick events every time clock is updated. Useful for scenarios where you want to do more than update a textField based on time.
+     * Created by Yashovardhan99 on 10/12/18 as a part of TimeIt.
+     *
+     * @author Yashovardhan Dhanania
+     * @since 1.2
+     */
+    public interface OnTickListener {
+        /**
+         * Called every time the clock 'ticks'. The stopwatch ticks after a delay of 100ms (or as specified).
+         * @since 1.2
+         * @param stopwatch Reference to the currently calling stopwatch.
+         */
+        void onTick(Stopwatch stopwatch);
+    }
+
+    /**
+     * A tick listener with its own period and next deadline.
+     *
+     * @since 2.0
+     */
+    private static final class PeriodicListener {
+        private final OnTickListener listener;
+        /**
+         * The period and deadline in nanoseconds, the deadline as read from the time source of the stopwatch.
+         */
+        private final long period;
+        private long deadline;
+
+        PeriodicListener(OnTickListener listener, long period) {
+            this.listener = listener;
+            this.period = period;
+        }
+
+        /**
+         * Moves the deadline to the first aligned deadline after now.
+         */
+        void advance(long now) {
+            deadline += period;
+            if (deadline <= now)
+                // the thread stalled, skip the missed ticks instead of firing them late in a burst
+                deadline += ((now - deadline) / period + 1) * period;
+        }
+    }
+
+    /**
+     * Interface to listen for splits and for the stopwatch being started, paused, resumed and stopped.
+     * Every event is called on the thread controlling the stopwatch, right after the stopwatch has changed. Times are in nanoseconds.
+     * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+     *
+     * @author Yashovardhan Dhanania
+     * @see #addOnSplitListener(OnSplitListener)
+     * @since 2.0
+     */
+    public interface OnSplitListener {
+        /**
+         * Called when the stopwatch is started.
+         *
+         * @param start the wall clock time in milliseconds when the stopwatch was started, as returned by {@link #getStart()}
+         * @since 2.0
+         */
+        void onStart(long start);
+
+        /**
+         * Called when a split is created.
+         *
+         * @param index     the number of the split since the stopwatch was started, starting from 0. Subtract {@link SplitBuffer#getDroppedCount()} for its index in the split buffer.
+         * @param splitTime the split time in nanoseconds
+         * @param lapTime   the lap time in nanoseconds
+         * @since 2.0
+         */
+        void onSplit(long index, long splitTime, long lapTime);
+
+        /**
+         * Called when the stopwatch is paused.
+         *
+         * @param elapsedTime the elapsed time in nanoseconds
+         * @since 2.0
+         */
+        void onPause(long elapsedTime);
+
+        /**
+         * Called when the stopwatch is resumed.
+         *
+         * @param elapsedTime the elapsed time in nanoseconds
+         * @since 2.0
+         */
+        void onResume(long elapsedTime);
+
+        /**
+         * Called when the stopwatch is stopped.
+         *
+         * @param elapsedTime the elapsed time in nanoseconds
+         * @since 2.0
+         */
+        void onStop(long elapsedTime);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,568 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the ticks, splits and state changes of a stopwatch or timer as a stream of events with backpressure.
+ * The interfaces follow the Reactive Streams specification ({@code java.util.concurrent.Flow} on Java 9 and later), so adapting a subscriber is a matter of forwarding four methods.
+ * <p>
+ * Every subscriber has its own buffer and demand, and receives its events on the given executor, never on the thread of the stopwatch.
+ * The stopwatch only appends an event to each buffer, so a slow subscriber such as a disk or network sink never delays ticks or the display.
+ * When a buffer is full, the subscriber's {@link Overflow} strategy decides whether the new event is dropped, the oldest one is dropped, the buffer grows, or the subscription fails.
+ * <p>
+ * Events are published on the thread of the stopwatch or timer, so publishers must be created and closed on that thread. Subscribing, requesting and cancelling may happen from any thread.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#addOnTickListener(Stopwatch.OnTickListener, long)
+ * @see Stopwatch#addOnSplitListener(Stopwatch.OnSplitListener)
+ * @since 2.0
+ */
+public final class TickPublisher implements Closeable {
+
+    private static final TickSubscription[] NO_SUBSCRIPTIONS = new TickSubscription[0];
+
+    private final Executor executor;
+    private final Stopwatch stopwatch;
+    private final Timer timer;
+    private final Stopwatch.OnTickListener tickListener;
+    private final Timer.OnTickListener timerListener;
+    private final Stopwatch.OnSplitListener splitListener = new Stopwatch.OnSplitListener() {
+        @Override
+        public void onStart(long start) {
+            publish(Event.Type.START, 0, -1, 0, 0);
+        }
+
+        @Override
+        public void onSplit(long index, long splitTime, long lapTime) {
+            publish(Event.Type.SPLIT, splitTime, index, splitTime, lapTime);
+        }
+
+        @Override
+        public void onPause(long elapsedTime) {
+            publish(Event.Type.PAUSE, elapsedTime, -1, 0, 0);
+        }
+
+        @Override
+        public void onResume(long elapsedTime) {
+            publish(Event.Type.RESUME, elapsedTime, -1, 0, 0);
+        }
+
+        @Override
+        public void onStop(long elapsedTime) {
+            publish(Event.Type.STOP, elapsedTime, -1, 0, 0);
+        }
+    };
+    private volatile TickSubscription[] subscriptions;
+    private boolean closed;
+
+    /**
+     * Creates a publisher of the events of a stopwatch, which ticks every period while it is running.
+     *
+     * @param stopwatch the stopwatch to publish
+     * @param period    the delay between tick events in milliseconds
+     * @param executor  the executor subscribers receive their events on
+     * @throws IllegalArgumentException if the period is not positive
+     * @since 2.0
+     */
+    public TickPublisher(Stopwatch stopwatch, long period, Executor executor) {
+        this.executor = executor;
+        this.stopwatch = stopwatch;
+        timer = null;
+        subscriptions = NO_SUBSCRIPTIONS;
+        closed = false;
+        tickListener = s -> publish(Event.Type.TICK, s.readElapsedTimeNanos(), -1, 0, 0);
+        timerListener = null;
+        stopwatch.addOnTickListener(tickListener, period);
+        stopwatch.addOnSplitListener(splitListener);
+    }
+
+    /**
+     * Creates a publisher of the events of a timer, which ticks every period while it is running and publishes an event when it completes.
+     * The time of timer events is the remaining time.
+     *
+     * @param timer    the timer to publish
+     * @param period   the delay between tick events in milliseconds
+     * @param executor the executor subscribers receive their events on
+     * @throws IllegalArgumentException if the period is not positive
+     * @since 2.0
+     */
+    public TickPublisher(final Timer timer, long period, Executor executor) {
+        this.executor = executor;
+        this.timer = timer;
+        stopwatch = null;
+        subscriptions = NO_SUBSCRIPTIONS;
+        closed = false;
+        tickListener = null;
+        timerListener = new Timer.OnTickListener() {
+            @Override
+            public void onTick(Timer t) {
+                publish(Event.Type.TICK, remainingNanos(), -1, 0, 0);
+            }
+
+            @Override
+            public void onComplete(Timer t) {
+                publish(Event.Type.COMPLETE, 0, -1, 0, 0);
+            }
+        };
+        timer.addOnTickListener(timerListener, period);
+        timer.getStopwatch().addOnSplitListener(splitListener);
+    }
+
+    /**
+     * Subscribes to the events of this publisher. The subscriber is called on the executor with {@code onSubscribe} first, and receives no events until it requests some.
+     *
+     * @param subscriber the subscriber
+     * @param overflow   what to do when the buffer of the subscriber is full
+     * @param bufferSize the number of events which can wait for demand, or the initial capacity of a growing {@link Overflow#BUFFER buffer}
+     * @throws IllegalArgumentException if the buffer size is not positive
+     * @since 2.0
+     */
+    public void subscribe(Subscriber<? super Event> subscriber, Overflow overflow, int bufferSize) {
+        if (subscriber == null || overflow == null)
+            throw new NullPointerException("subscriber == null || overflow == null");
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive : " + bufferSize);
+        TickSubscription subscription = new TickSubscription(subscriber, overflow, bufferSize);
+        synchronized (this) {
+            if (closed)
+                subscription.complete();
+            else {
+                TickSubscription[] current = subscriptions;
+                TickSubscription[] added = Arrays.copyOf(current, current.length + 1);
+                added[current.length] = subscription;
+                subscriptions = added;
+            }
+        }
+        subscription.schedule();
+    }
+
+    /**
+     * Returns the number of subscribers which have neither cancelled nor failed.
+     *
+     * @return the number of active subscribers
+     * @since 2.0
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Stops publishing and completes every subscriber once it has received its buffered events.
+     *
+     * @since 2.0
+     */
+    @Override
+    public void close() {
+        TickSubscription[] current;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            current = subscriptions;
+            subscriptions = NO_SUBSCRIPTIONS;
+        }
+        if (stopwatch != null) {
+            stopwatch.removeOnTickListener(tickListener);
+            stopwatch.removeOnSplitListener(splitListener);
+        } else {
+            timer.removeOnTickListener(timerListener);
+            timer.getStopwatch().removeOnSplitListener(splitListener);
+        }
+        for (TickSubscription subscription : current) {
+            subscription.complete();
+            subscription.schedule();
+        }
+    }
+
+    private long remainingNanos() {
+        return timer.getDuration() * 1000000 - timer.getStopwatch().readElapsedTimeNanos();
+    }
+
+    /**
+     * Appends an event to the buffer of every subscriber. Events are only created while there are subscribers.
+     */
+    void publish(Event.Type type, long time, long index, long splitTime, long lapTime) {
+        TickSubscription[] current = subscriptions;
+        if (current.length == 0)
+            return;
+        Event event = new Event(type, time, index, splitTime, lapTime);
+        for (TickSubscription subscription : current)
+            subscription.offer(event);
+    }
+
+    private synchronized void remove(TickSubscription subscription) {
+        TickSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                TickSubscription[] remaining = new TickSubscription[current.length - 1];
+                System.arraycopy(current, 0, remaining, 0, i);
+                System.arraycopy(current, i + 1, remaining, i, remaining.length - i);
+                subscriptions = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * What a subscription does with a new event when its buffer is full.
+     *
+     * @since 2.0
+     */
+    public enum Overflow {
+        /**
+         * Drop the new event, keeping the buffered ones.
+         */
+        DROP,
+        /**
+         * Drop the oldest buffered event, so the subscriber always gets the latest events. With a buffer of one event, the subscriber only ever sees the latest event.
+         */
+        LATEST,
+        /**
+         * Grow the buffer, so that no event is ever lost. A subscriber which never catches up makes the buffer grow without bound.
+         */
+        BUFFER,
+        /**
+         * Cancel the subscription and signal an {@link IllegalStateException}, for subscribers which must keep up and cannot lose events.
+         */
+        ERROR
+    }
+
+    /**
+     * Receives the events of a publisher. Mirrors {@code java.util.concurrent.Flow.Subscriber}.
+     * Methods are called on the executor of the publisher, one at a time.
+     *
+     * @param <T> the type of the events
+     * @since 2.0
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called once before any other method.
+         *
+         * @param subscription the subscription to request events with
+         * @since 2.0
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called for every requested event.
+         *
+         * @param item the event
+         * @since 2.0
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the subscription fails. No other method is called afterwards.
+         *
+         * @param throwable the reason of the failure
+         * @since 2.0
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when the publisher is closed, after every buffered event has been delivered. No other method is called afterwards.
+         *
+         * @since 2.0
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a subscriber to a publisher. Mirrors {@code java.util.concurrent.Flow.Subscription}.
+     *
+     * @since 2.0
+     */
+    public interface Subscription {
+        /**
+         * Adds to the number of events the subscriber wants to receive.
+         *
+         * @param n the number of events, positive. {@link Long#MAX_VALUE} for no limit.
+         * @since 2.0
+         */
+        void request(long n);
+
+        /**
+         * Stops the delivery of events. Events may still be delivered for a short time.
+         *
+         * @since 2.0
+         */
+        void cancel();
+    }
+
+    /**
+     * An event of a stopwatch or timer. Times are in nanoseconds.
+     *
+     * @since 2.0
+     */
+    public static final class Event {
+
+        /**
+         * The kind of an event.
+         *
+         * @since 2.0
+         */
+        public enum Type {
+            TICK, START, SPLIT, PAUSE, RESUME, STOP,
+            /**
+             * A timer ran its full duration.
+             */
+            COMPLETE
+        }
+
+        private final Type type;
+        private final long time, index, splitTime, lapTime;
+
+        Event(Type type, long time, long index, long splitTime, long lapTime) {
+            this.type = type;
+            this.time = time;
+            this.index = index;
+            this.splitTime = splitTime;
+            this.lapTime = lapTime;
+        }
+
+        /**
+         * Returns the kind of this event.
+         *
+         * @return the type of the event
+         * @since 2.0
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the time of this event : the elapsed time for a stopwatch, the remaining time for the ticks of a timer.
+         *
+         * @return the time in nanoseconds
+         * @since 2.0
+         */
+        public long getTimeNanos() {
+            return time;
+        }
+
+        /**
+         * Returns the number of the split since the stopwatch was started.
+         *
+         * @return the split index, -1 if this is not a split
+         * @since 2.0
+         */
+        public long getSplitIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the split time of a split.
+         *
+         * @return the split time in nanoseconds, 0 if this is not a split
+         * @since 2.0
+         */
+        public long getSplitTimeNanos() {
+            return splitTime;
+        }
+
+        /**
+         * Returns the lap time of a split.
+         *
+         * @return the lap time in nanoseconds, 0 if this is not a split
+         * @since 2.0
+         */
+        public long getLapTimeNanos() {
+            return lapTime;
+        }
+
+        @Override
+        public String toString() {
+            return type == Type.SPLIT ? "SPLIT " + index + " at " + splitTime + "ns, lap " + lapTime + "ns" : type + " at " + time + "ns";
+        }
+    }
+
+    /**
+     * The buffer and demand of one subscriber. Events are delivered by a drain loop on the executor which only one thread runs at a time.
+     *
+     * @since 2.0
+     */
+    private final class TickSubscription implements Subscription, Runnable {
+        private final Subscriber<? super Event> subscriber;
+        private final Overflow overflow;
+        private Event[] buffer;
+        /**
+         * Counts the requests to drain, so that a single drain loop runs at a time and picks up every change.
+         */
+        private final AtomicInteger drains = new AtomicInteger();
+        // guarded by this, as is the buffer
+        private int head, count;
+        private long demand;
+        private boolean cancelled, completing;
+        private Throwable error;
+        // only accessed by the drain loop
+        private boolean subscribed, terminated;
+
+        TickSubscription(Subscriber<? super Event> subscriber, Overflow overflow, int bufferSize) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            buffer = new Event[bufferSize];
+        }
+
+        void offer(Event event) {
+            boolean failed = false;
+            synchronized (this) {
+                if (cancelled || completing)
+                    return;
+                if (count == buffer.length) {
+                    switch (overflow) {
+                        case DROP:
+                            return;
+                        case LATEST:
+                            buffer[head] = null;
+                            head = (head + 1) % buffer.length;
+                            count--;
+                            break;
+                        case BUFFER:
+                            if (grow())
+                                break;
+                            // the buffer cannot grow any more
+                            error = new IllegalStateException("Buffer overflow : more than " + buffer.length + " events waiting for demand");
+                            cancelled = true;
+                            failed = true;
+                            break;
+                        case ERROR:
+                            error = new IllegalStateException("Buffer overflow : more than " + buffer.length + " events waiting for demand");
+                            cancelled = true;
+                            failed = true;
+                            break;
+                    }
+                }
+                if (!cancelled) {
+                    buffer[(head + count) % buffer.length] = event;
+                    count++;
+                }
+            }
+            if (failed)
+                remove(this);
+            schedule();
+        }
+
+        /**
+         * Doubles the buffer, moving the waiting events to its start.
+         *
+         * @return false if the buffer has reached the largest array size
+         */
+        private boolean grow() {
+            if (buffer.length == Integer.MAX_VALUE - 8)
+                return false;
+            Event[] grown = new Event[(int) Math.min((long) buffer.length * 2, Integer.MAX_VALUE - 8)];
+            for (int i = 0; i < count; i++)
+                grown[i] = buffer[(head + i) % buffer.length];
+            buffer = grown;
+            head = 0;
+            return true;
+        }
+
+        void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+        }
+
+        void schedule() {
+            if (drains.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void request(long n) {
+            boolean failed = false;
+            synchronized (this) {
+                if (cancelled)
+                    return;
+                if (n <= 0) {
+                    // rule 3.9 of the specification
+                    error = new IllegalArgumentException("Non-positive request : " + n);
+                    cancelled = true;
+                    failed = true;
+                } else
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            if (failed)
+                remove(this);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+            }
+            remove(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                drain();
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            while (!terminated) {
+                Event event;
+                Throwable failure;
+                boolean done;
+                synchronized (this) {
+                    failure = error;
+                    done = failure == null && !cancelled && completing && count == 0;
+                    if (failure != null || cancelled || done) {
+                        Arrays.fill(buffer, null);
+                        count = 0;
+                        event = null;
+                    } else if (demand == 0 || count == 0) {
+                        return;
+                    } else {
+                        event = buffer[head];
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        count--;
+                        if (demand != Long.MAX_VALUE)
+                            demand--;
+                    }
+                }
+                if (event != null) {
+                    subscriber.onNext(event);
+                    continue;
+                }
+                terminated = true;
+                if (failure != null)
+                    subscriber.onError(failure);
+                else if (done)
+                    subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A shared clock which drives the ticks of many stopwatches and timers.
+ * All registrations with the same clock delay are grouped together and dispatched in a batch, and the scheduler only ever asks its driver for a single wake up at the earliest deadline no matter how many stopwatches are running.
+ * Registering and unregistering is O(1) and the cost of a tick only depends on the number of running instances.
+ * <p>
+ * Ticks are scheduled at absolute deadlines : tick k of a group targets {@code start + k * period}, where start is the time the group was created, so the time spent in listeners and the latency of the driver do not add up over time.
+ * If the thread stalls past one or more deadlines, the missed ticks are skipped and the group continues at the next aligned deadline instead of firing a burst of late ticks.
+ * <p>
+ * The scheduler also keeps the deadlines of running timers in a {@link TimingWheel} instead of every timer polling its own remaining time.
+ * The driver is woken up at the earliest timer deadline as well, so timers complete on time regardless of the clock delay of any stopwatch.
+ * <p>
+ * This class contains the platform independent part of the scheduler. Subclasses only have to call {@link #dispatch()} on their thread when asked to by {@link #requestDispatch(long)}.
+ * All ticks of a scheduler are dispatched on that thread. Scheduling and cancelling is synchronized on the scheduler and may happen from any thread.
+ * <p>
+ * A dispatch holds the lock of the scheduler while it runs tick listeners, display updates and timer completions, so that the groups and timeouts cannot change under it.
+ * Another thread scheduling or cancelling on the same scheduler, such as a {@link ConcurrentStopwatch} started or stopped elsewhere, waits until the listeners return.
+ * Listeners should therefore be short, and must never wait for a thread which may be scheduling or cancelling on the same scheduler, as both would then wait forever.
+ * <p>
+ * Stopwatches and timers only change their state on the dispatch thread, so that ticks never race with the thread controlling them.
+ * Subclasses whose thread is not the one controlling them override {@link #isDispatchThread()} and {@link #post(Runnable)}, and calls made on any other thread are then run on the dispatch thread with {@link #invoke(Runnable)}.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see ExecutorTickScheduler
+ * @see Stopwatch#setTickScheduler(TickScheduler)
+ * @since 2.0
+ */
+public abstract class TickScheduler {
+
+    /**
+     * Resolution of timer deadlines.
+     */
+    private static final long TIMEOUT_TICK_NANOS = 1000000;
+
+    private final TimeSource timeSource;
+    private final HashMap<Long, TickGroup> groups;
+    private final TimingWheel timeouts;
+    private TickGroup[] active;
+    private int activeCount;
+    /**
+     * The time at which the driver has been asked to dispatch next, Long.MAX_VALUE if it has not been asked.
+     */
+    private long wakeUp;
+    /**
+     * The deadline of the tick group being dispatched.
+     */
+    private long tickDeadline;
+    private boolean dispatching;
+
+    /**
+     * Creates a scheduler which measures its deadlines with the given time source.
+     *
+     * @param timeSource the clock used for tick and timer deadlines
+     * @since 2.0
+     */
+    protected TickScheduler(TimeSource timeSource) {
+        this.timeSource = timeSource;
+        groups = new HashMap<>();
+        timeouts = new TimingWheel(TIMEOUT_TICK_NANOS, timeSource.nanoTime());
+        active = new TickGroup[2];
+        activeCount = 0;
+        wakeUp = Long.MAX_VALUE;
+        tickDeadline = 0;
+        dispatching = false;
+    }
+
+    /**
+     * Asks the driver to call {@link #dispatch()} on the scheduler's thread once the given delay has passed.
+     * This replaces any earlier request which has not been dispatched yet.
+     *
+     * @param delay the delay in nanoseconds, 0 to dispatch as soon as possible
+     * @since 2.0
+     */
+    protected abstract void requestDispatch(long delay);
+
+    /**
+     * Returns true if the calling thread is the thread ticks are dispatched on.
+     * The default returns true, for schedulers which are dispatched by the thread controlling their stopwatches, such as a scheduler driven by hand in tests.
+     *
+     * @return true if the current thread is the dispatch thread
+     * @since 2.0
+     */
+    protected boolean isDispatchThread() {
+        return true;
+    }
+
+    /**
+     * Runs a task on the dispatch thread as soon as possible. Only called on other threads, when {@link #isDispatchThread()} returns false.
+     *
+     * @param task the task to run
+     * @throws UnsupportedOperationException if the scheduler cannot run tasks, which is the default
+     * @since 2.0
+     */
+    protected void post(Runnable task) {
+        throw new UnsupportedOperationException("Tasks can only be run on the dispatch thread");
+    }
+
+    /**
+     * Runs a task on the dispatch thread, right away if called on that thread and otherwise by posting it and waiting for it to complete.
+     * Runtime exceptions thrown by the task are thrown again to the caller. The dispatch thread must not be waiting for the caller.
+     *
+     * @param task the task to run
+     * @since 2.0
+     */
+    final void invoke(Runnable task) {
+        if (isDispatchThread()) {
+            task.run();
+            return;
+        }
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        post(future);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    // the task runs anyway, so wait for it and keep the interrupt for later
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the time source used for deadlines.
+     *
+     * @return the clock of this scheduler
+     * @since 2.0
+     */
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    /**
+     * Runs every tick group which is due. Must only be called by the driver, on the scheduler's thread.
+     * Listeners run with the lock of this scheduler held, see the class documentation.
+     *
+     * @since 2.0
+     */
+    protected final synchronized void dispatch() {
+        wakeUp = Long.MAX_VALUE;
+        long now = timeSource.nanoTime();
+        dispatching = true;
+        try {
+            if (timeouts.size() > 0)
+                timeouts.advance(now);
+            for (int i = 0; i < activeCount; i++) {
+                TickGroup group = active[i];
+                if (group.deadline <= now) {
+                    tickDeadline = group.deadline;
+                    group.advance(now);
+                    group.dispatch();
+                }
+            }
+        } finally {
+            dispatching = false;
+        }
+
+        long next = timeouts.nextDeadline();
+        for (int i = activeCount - 1; i >= 0; i--) {
+            TickGroup group = active[i];
+            if (group.isEmpty())
+                removeGroup(group);
+            else if (group.deadline < next)
+                next = group.deadline;
+        }
+        requestWakeUp(next);
+    }
+
+    /**
+     * Returns the deadline of the tick being dispatched, so that a registration can measure how late it runs.
+     *
+     * @return the time in nanoseconds at which the current tick was due, as read from the time source of this scheduler
+     * @since 2.0
+     */
+    long getTickDeadline() {
+        return tickDeadline;
+    }
+
+    /**
+     * Starts ticking the given registration every period milliseconds along with every other registration with the same period.
+     * If it is already scheduled, it is moved to the new period.
+     *
+     * @param registration the registration to tick
+     * @param period       the delay between ticks in milliseconds
+     * @since 2.0
+     */
+    synchronized void schedule(Registration registration, long period) {
+        if (registration.group != null) {
+            if (registration.group.period == period)
+                return;
+            cancel(registration);
+        }
+        TickGroup group = groups.get(period);
+        if (group == null) {
+            group = new TickGroup(period, timeSource.nanoTime());
+            groups.put(period, group);
+            if (activeCount == active.length) {
+                TickGroup[] grown = new TickGroup[activeCount * 2];
+                System.arraycopy(active, 0, grown, 0, activeCount);
+                active = grown;
+            }
+            active[activeCount++] = group;
+            requestWakeUp(group.deadline);
+        }
+        group.add(registration);
+    }
+
+    /**
+     * Stops ticking the given registration. Does nothing if it is not scheduled.
+     *
+     * @param registration the registration to stop
+     * @since 2.0
+     */
+    synchronized void cancel(Registration registration) {
+        TickGroup group = registration.group;
+        if (group == null)
+            return;
+        group.remove(registration);
+        if (group.isEmpty() && !dispatching)
+            removeGroup(group);
+    }
+
+    /**
+     * Schedules a timeout to run once after the given delay, replacing its previous deadline if it was already scheduled.
+     * The driver is asked to dispatch at the deadline, which is rounded up to the next millisecond.
+     *
+     * @param timeout the timeout to schedule
+     * @param delay   the delay in nanoseconds
+     * @since 2.0
+     */
+    synchronized void schedule(TimingWheel.Timeout timeout, long delay) {
+        timeouts.schedule(timeout, timeSource.nanoTime() + delay);
+        requestWakeUp(timeouts.nextDeadline());
+    }
+
+    /**
+     * Cancels a timeout. Does nothing if it is not scheduled.
+     *
+     * @param timeout the timeout to cancel
+     * @since 2.0
+     */
+    synchronized void cancel(TimingWheel.Timeout timeout) {
+        timeouts.cancel(timeout);
+    }
+
+    private void removeGroup(TickGroup group) {
+        groups.remove(group.period);
+        for (int i = 0; i < activeCount; i++) {
+            if (active[i] == group) {
+                active[i] = active[--activeCount];
+                active[activeCount] = null;
+                break;
+            }
+        }
+    }
+
+    private void requestWakeUp(long deadline) {
+        if (dispatching || deadline >= wakeUp)
+            return;
+        wakeUp = deadline;
+        requestDispatch(Math.max(0, deadline - timeSource.nanoTime()));
+    }
+
+    /**
+     * A task which can be scheduled with a tick scheduler. It remembers its position within its group so that it can be removed in constant time.
+     *
+     * @since 2.0
+     */
+    static final class Registration {
+        private final Runnable task;
+        private TickGroup group;
+        private int index;
+
+        Registration(Runnable task) {
+            this.task = task;
+            group = null;
+            index = -1;
+        }
+
+        boolean isScheduled() {
+            return group != null;
+        }
+    }
+
+    /**
+     * All registrations ticking with the same period.
+     *
+     * @since 2.0
+     */
+    private static final class TickGroup {
+        private final long period;
+        private long deadline;
+        private Registration[] members;
+        private int size, removed;
+        private boolean dispatching;
+
+        TickGroup(long period, long deadline) {
+            this.period = period;
+            this.deadline = deadline;
+            members = new Registration[4];
+            size = 0;
+            removed = 0;
+            dispatching = false;
+        }
+
+        boolean isEmpty() {
+            return size == removed;
+        }
+
+        /**
+         * Moves the deadline to the first aligned deadline after now.
+         */
+        void advance(long now) {
+            long period = Math.max(1, this.period * 1000000);
+            deadline += period;
+            if (deadline <= now)
+                // the thread stalled, skip the missed ticks instead of firing them late in a burst
+                deadline += ((now - deadline) / period + 1) * period;
+        }
+
+        void add(Registration registration) {
+            if (size == members.length) {
+                Registration[] grown = new Registration[size * 2];
+                System.arraycopy(members, 0, grown, 0, size);
+                members = grown;
+            }
+            registration.group = this;
+            registration.index = size;
+            members[size++] = registration;
+        }
+
+        void remove(Registration registration) {
+            int index = registration.index;
+            registration.group = null;
+            registration.index = -1;
+            if (dispatching) {
+                // keep the positions stable while iterating, the hole is compacted after the dispatch
+                members[index] = null;
+                removed++;
+            } else {
+                Registration last = members[--size];
+                members[size] = null;
+                if (index != size) {
+                    members[index] = last;
+                    last.index = index;
+                }
+            }
+        }
+
+        private void compact() {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                Registration registration = members[i];
+                if (registration != null) {
+                    registration.index = count;
+                    members[count++] = registration;
+                }
+            }
+            for (int i = count; i < size; i++)
+                members[i] = null;
+            size = count;
+            removed = 0;
+        }
+
+        void dispatch() {
+            dispatching = true;
+            try {
+                for (int i = 0; i < size; i++) {
+                    Registration registration = members[i];
+                    if (registration != null)
+                        registration.task.run();
+                }
+            } finally {
+                dispatching = false;
+                if (removed > 0)
+                    compact();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * Measurements of the ticks of a stopwatch or timer : how late every tick ran compared to its deadline, how long its listeners took, and how many ticks were late or skipped.
+ * Every dispatch counts as a tick, including the display updates scheduled when nothing else observes the clock and the completion of a timer.
+ * Lateness and dispatch time are recorded in {@link LatencyHistogram histograms}, which give their minimum, maximum, mean and percentiles.
+ * This helps choosing a clock delay the thread can keep up with, and finding slow listeners.
+ * <p>
+ * Measuring is disabled until a TickStats is set on a stopwatch, and then costs a few clock reads and array increments per tick.
+ * Stats are recorded on the scheduler's thread and are not thread safe, so read them on that thread. Stats of several stopwatches can be merged with {@link #add(TickStats)}.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#setTickStats(TickStats)
+ * @see Timer#setTickStats(TickStats)
+ * @since 2.0
+ */
+public final class TickStats {
+
+    private final LatencyHistogram lateness;
+    private final LatencyHistogram dispatchTime;
+    private long ticks, lateTicks, skippedTicks;
+    private long lateThreshold;
+
+    /**
+     * Creates empty stats, counting ticks more than 16 milliseconds late (a frame at 60 Hz) as late.
+     *
+     * @since 2.0
+     */
+    public TickStats() {
+        lateness = new LatencyHistogram(5);
+        dispatchTime = new LatencyHistogram(5);
+        lateThreshold = 16000000;
+        reset();
+    }
+
+    /**
+     * Returns the number of ticks recorded.
+     *
+     * @return the number of ticks since the stats were created or reset
+     * @since 2.0
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of ticks which ran later than the late threshold.
+     *
+     * @return the number of late ticks
+     * @see #setLateThreshold(long)
+     * @since 2.0
+     */
+    public long getLateTickCount() {
+        return lateTicks;
+    }
+
+    /**
+     * Returns the number of ticks which were skipped because an earlier tick ran past their deadline.
+     *
+     * @return the number of skipped ticks
+     * @since 2.0
+     */
+    public long getSkippedTickCount() {
+        return skippedTicks;
+    }
+
+    /**
+     * Returns how late ticks ran compared to their deadline, in nanoseconds.
+     *
+     * @return the histogram of tick lateness
+     * @since 2.0
+     */
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * Returns how long every tick took, including its listeners and display update, in nanoseconds.
+     *
+     * @return the histogram of dispatch times
+     * @since 2.0
+     */
+    public LatencyHistogram getDispatchTime() {
+        return dispatchTime;
+    }
+
+    /**
+     * Returns the lateness above which a tick is counted as late.
+     *
+     * @return the late threshold in milliseconds (default : 16ms)
+     * @since 2.0
+     */
+    public long getLateThreshold() {
+        return lateThreshold / 1000000;
+    }
+
+    /**
+     * Set the lateness above which a tick is counted as late. Ticks recorded earlier are not counted again.
+     *
+     * @param lateThreshold the late threshold in milliseconds (default : 16ms)
+     * @throws IllegalArgumentException if the threshold is negative
+     * @since 2.0
+     */
+    public void setLateThreshold(long lateThreshold) {
+        if (lateThreshold < 0)
+            throw new IllegalArgumentException("Negative threshold : " + lateThreshold);
+        this.lateThreshold = lateThreshold * 1000000;
+    }
+
+    /**
+     * Adds the ticks recorded by other stats to these.
+     *
+     * @param other the stats to merge into these
+     * @since 2.0
+     */
+    public void add(TickStats other) {
+        lateness.add(other.lateness);
+        dispatchTime.add(other.dispatchTime);
+        ticks += other.ticks;
+        lateTicks += other.lateTicks;
+        skippedTicks += other.skippedTicks;
+    }
+
+    /**
+     * Removes all recorded ticks.
+     *
+     * @since 2.0
+     */
+    public void reset() {
+        lateness.reset();
+        dispatchTime.reset();
+        ticks = 0;
+        lateTicks = 0;
+        skippedTicks = 0;
+    }
+
+    /**
+     * Records a tick.
+     *
+     * @param lateness     how late the tick ran in nanoseconds
+     * @param period       the period of the tick in nanoseconds
+     * @param dispatchTime how long the tick took in nanoseconds
+     */
+    void record(long lateness, long period, long dispatchTime) {
+        lateness = Math.max(0, lateness);
+        ticks++;
+        if (lateness > lateThreshold)
+            lateTicks++;
+        if (period > 0)
+            skippedTicks += lateness / period;
+        this.lateness.record(lateness);
+        this.dispatchTime.record(Math.max(0, dispatchTime));
+    }
+
+    @Override
+    public String toString() {
+        return "TickStats{ticks=" + ticks
+                + ", late=" + lateTicks
+                + ", skipped=" + skippedTicks
+                + ", lateness(mean=" + (long) lateness.getMean() + "ns, p99=" + lateness.getValueAtPercentile(99) + "ns, max=" + lateness.getMax() + "ns)"
+                + ", dispatch(mean=" + (long) dispatchTime.getMean() + "ns, p99=" + dispatchTime.getValueAtPercentile(99) + "ns, max=" + dispatchTime.getMax() + "ns)}";
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * Something which can show the formatted time of a stopwatch or timer, such as a TextView on Android.
+ * The signature matches {@code TextView#setText(char[], int, int)} so that a text view can be passed as {@code textView::setText}.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch#setDisplay(TimeDisplay)
+ * @see Timer#setDisplay(TimeDisplay)
+ * @since 2.0
+ */
+public interface TimeDisplay {
+    /**
+     * Shows the given text. The array is reused by the caller and only valid until the next call.
+     *
+     * @param text   array holding the formatted time
+     * @param start  index of the first character to show
+     * @param length number of characters to show
+     * @since 2.0
+     */
+    void setText(char[] text, int start, int length);
+}
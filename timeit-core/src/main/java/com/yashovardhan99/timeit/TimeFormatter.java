@@ -0,0 +1,177 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * An allocation-free formatter for displaying stopwatch and timer values.
+ * Each call to {@link #format(long)} writes the digits straight into a reusable char buffer, so formatting on every clock tick creates no garbage.
+ * The formatter is itself a CharSequence over that buffer and its contents change on every call to format.
+ * <p>
+ * Time is formatted in either of the following formats depending on time passed - SS.ss, MM:SS.ss, H:MM:SS.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch
+ * @see Timer
+ * @since 2.0
+ */
+public final class TimeFormatter implements CharSequence {
+
+    /**
+     * Longest possible output : 13 digits of hours for Long.MAX_VALUE milliseconds followed by ":MM:SS".
+     */
+    private static final int MAX_LENGTH = 19;
+
+    private static final char[] DIGIT_TENS = new char[100];
+    private static final char[] DIGIT_ONES = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (char) ('0' + i / 10);
+            DIGIT_ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private final char[] buffer = new char[MAX_LENGTH];
+    private int length;
+
+    /**
+     * Creates a formatter initially holding the formatted value for 0 milliseconds.
+     *
+     * @since 2.0
+     */
+    public TimeFormatter() {
+        format(0);
+    }
+
+    /**
+     * Formats the given time into this formatter's buffer, replacing its previous contents.
+     * Negative values are formatted as 0.
+     *
+     * @param time time in milliseconds which has to be formatted
+     * @return this formatter, holding the formatted time
+     * @since 2.0
+     */
+    public TimeFormatter format(long time) {
+        if (time < 0)
+            time = 0;
+
+        int centis = (int) ((time % 1000) / 10);
+        int seconds = (int) ((time / 1000) % 60);
+        int minutes = (int) (time / (60 * 1000) % 60);
+        long hours = time / (60 * 60 * 1000);
+
+        int pos;
+        if (hours == 0 && minutes == 0) {
+            pos = putTwoDigits(0, seconds);
+            buffer[pos++] = '.';
+            pos = putTwoDigits(pos, centis);
+        } else if (hours == 0) {
+            pos = putTwoDigits(0, minutes);
+            buffer[pos++] = ':';
+            pos = putTwoDigits(pos, seconds);
+            buffer[pos++] = '.';
+            pos = putTwoDigits(pos, centis);
+        } else {
+            pos = putDigits(hours);
+            buffer[pos++] = ':';
+            pos = putTwoDigits(pos, minutes);
+            buffer[pos++] = ':';
+            pos = putTwoDigits(pos, seconds);
+        }
+        length = pos;
+        return this;
+    }
+
+    /**
+     * Returns the resolution of the formatted text at the given time : 10 milliseconds below an hour, where hundredths of a second are shown, and 1 second from an hour on.
+     * Times which only differ within the same multiple of the resolution are formatted to the same text.
+     *
+     * @param time time in milliseconds
+     * @return the resolution in milliseconds
+     * @since 2.0
+     */
+    public static long getResolution(long time) {
+        return time < 60 * 60 * 1000 ? 10 : 1000;
+    }
+
+    /**
+     * Returns the backing array holding the formatted time from index 0 up to {@link #length()}.
+     * The array is reused and overwritten by the next call to {@link #format(long)}.
+     *
+     * @return the backing char array of this formatter
+     * @see TimeDisplay#setText(char[], int, int)
+     * @since 2.0
+     */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index : " + index + ", Length : " + length);
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("Start : " + start + ", End : " + end + ", Length : " + length);
+        return new String(buffer, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private int putTwoDigits(int pos, int value) {
+        buffer[pos] = DIGIT_TENS[value];
+        buffer[pos + 1] = DIGIT_ONES[value];
+        return pos + 2;
+    }
+
+    /**
+     * Writes a non-negative value without leading zeroes at the start of the buffer.
+     *
+     * @return the position after the last digit written
+     */
+    private int putDigits(long value) {
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10)
+            digits++;
+
+        int pos = digits;
+        while (value >= 100) {
+            int pair = (int) (value % 100);
+            value /= 100;
+            buffer[--pos] = DIGIT_ONES[pair];
+            buffer[--pos] = DIGIT_TENS[pair];
+        }
+        buffer[--pos] = DIGIT_ONES[(int) value];
+        if (value >= 10)
+            buffer[--pos] = DIGIT_TENS[(int) value];
+        return digits;
+    }
+}
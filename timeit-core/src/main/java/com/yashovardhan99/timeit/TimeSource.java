@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * A monotonic clock used by the stopwatch and timer to measure elapsed time.
+ * Only the difference between two readings of the same source is meaningful, the origin of the values is arbitrary.
+ * Unlike {@link System#currentTimeMillis()}, a time source must never jump when the wall clock is changed by the user or NTP.
+ * On Android, ElapsedRealtimeTimeSource from the timeit module is used by default.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see ManualTimeSource
+ * @since 2.0
+ */
+public interface TimeSource {
+
+    /**
+     * A time source backed by {@link System#nanoTime()}.
+     * On Android this clock does not advance while the device is in deep sleep.
+     *
+     * @since 2.0
+     */
+    TimeSource SYSTEM = System::nanoTime;
+
+    /**
+     * Returns the current value of this clock.
+     *
+     * @return the current time in nanoseconds
+     * @since 2.0
+     */
+    long nanoTime();
+}
@@ -0,0 +1,622 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The timer class is a utility class for creating and managing count down timers. This class provides basic features like : start, stop, pause and resume.
+ * You must set a duration to use the timer. This duration must be a positive long integer for the timer to work.
+ * You can also set a display to auto-update every 0.1 second or use the OnTickListener interface to listen for clock update events.
+ * The deadline of a running timer is kept by its {@link TickScheduler}, which wakes up to complete the timer at its exact deadline instead of on the next clock tick.
+ * Completion therefore does not depend on the clock delay, which only controls how often the display and the OnTickListener are updated.
+ * Like a {@link Stopwatch}, a timer only changes its state and completes on the thread of its scheduler, and methods called on any other thread are run there.
+ * This class does not depend on Android. On Android, use AndroidTimer from the timeit module which ticks on the main thread and can update a TextView.
+ * <p>
+ * Created by Yashovardhan99 on 24/12/18 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @version 2.0
+ * @see Stopwatch
+ * @since 1.2
+ */
+public class Timer {
+
+    private static final Logger LOG = Logger.getLogger("TIMER");
+    private static final PeriodicTicker[] NO_TICKERS = new PeriodicTicker[0];
+
+    private volatile long duration;
+    private TimeDisplay display;
+    private Stopwatch stopwatch;
+    private Timer.OnTickListener onTickListener;
+    /**
+     * Listeners added with their own period, replaced by a copy whenever one is added or removed.
+     */
+    private PeriodicTicker[] periodicTickers = NO_TICKERS;
+    private boolean debugMode;
+    private SplitJournal journal;
+    private final DisplayBinding binding = new DisplayBinding();
+
+    /**
+     * Completes the timer when its deadline is reached.
+     *
+     * @since 2.0
+     */
+    private final TimingWheel.Timeout completion = new TimingWheel.Timeout(this::expire);
+
+    /**
+     * Listens to the ticks of the stopwatch while the listener or debug logs need them.
+     *
+     * @since 2.0
+     */
+    private final Stopwatch.OnTickListener ticker = this::onTick;
+
+    /**
+     * Updates the display when its text changes, used instead of ticking when the display is the only observer.
+     *
+     * @since 2.0
+     */
+    private final TimingWheel.Timeout displayUpdate = new TimingWheel.Timeout(this::refreshDisplay);
+
+    /**
+     * The default constructor used to create an instance of Timer. Duration is set to a default value of 0 which should be changed before calling start.
+     *
+     * @see #Timer(long)
+     * @see #setDuration(long)
+     * @since 1.2
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Timer() {
+        this(0, TimeSource.SYSTEM);
+    }
+
+
+    /**
+     * Parameterized constructor used to initialize an instance of Timer with a specified duration
+     *
+     * @param duration the duration for which the timer should run in milliseconds
+     * @see #Timer()
+     * @since 1.2
+     */
+    public Timer(long duration) {
+        this(duration, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Creates a timer with the specified duration which measures time with the given time source and ticks on the default scheduler.
+     *
+     * @param duration   the duration for which the timer should run in milliseconds
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @see TimeSource
+     * @since 2.0
+     */
+    public Timer(long duration, TimeSource timeSource) {
+        this(duration, timeSource, ExecutorTickScheduler.getDefault());
+    }
+
+    /**
+     * Creates a timer with the specified duration which measures time with the given time source and ticks on the given scheduler.
+     *
+     * @param duration   the duration for which the timer should run in milliseconds
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @param scheduler  the scheduler which drives the clock of this timer
+     * @see TimeSource
+     * @see TickScheduler
+     * @since 2.0
+     */
+    public Timer(long duration, TimeSource timeSource, TickScheduler scheduler) {
+        stopwatch = new Stopwatch(timeSource, scheduler);
+        display = null;
+        this.duration = duration;
+        onTickListener = null;
+        debugMode = false;
+        journal = null;
+    }
+
+    /**
+     * Returns true if the timer has been started
+     *
+     * @return true if the timer has been started
+     * @since 1.2
+     */
+    public boolean isStarted() {
+        return stopwatch.isStarted();
+    }
+
+    /**
+     * Returns true if the timer is paused
+     *
+     * @return true if the timer is paused
+     * @since 1.2
+     */
+    public boolean isPaused() {
+        return stopwatch.isPaused();
+    }
+
+    /**
+     * Get the remaining time of the timer in milliseconds
+     * It is read from the clock, so it is exact even if the timer has not ticked since, and can be read on any thread.
+     *
+     * @return the remaining time of the timer in milliseconds
+     * @since 1.2
+     */
+    public long getRemainingTime() {
+        return duration - stopwatch.getElapsedTime();
+    }
+
+    /**
+     * Get the start time in long
+     *
+     * @return the timestamp when the timer was started
+     * @since 1.2
+     */
+    public long getStart() {
+        return stopwatch.getStart();
+    }
+
+    /**
+     * Fetch the set duration of the timer
+     *
+     * @return the set duration of the timer in milliseconds
+     * @since 1.2
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Used to set the duration of the timer.
+     * If the timer is running, it completes once the new duration has elapsed.
+     *
+     * @param duration the duration in milliseconds for which you want to set the timer
+     * @since 1.2
+     */
+    public void setDuration(long duration) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setDuration(duration));
+            return;
+        }
+        this.duration = duration;
+        if (isStarted() && journal != null)
+            journal.append(SplitJournal.DURATION, stopwatch.readElapsedTimeNanos(), duration);
+        if (isStarted() && !isPaused())
+            scheduleCompletion();
+    }
+
+    /**
+     * Returns the currently set clock delay
+     *
+     * @return currently set clock delay in milliseconds (default: 100ms)
+     * @since 2.0
+     */
+    public long getClockDelay() {
+        return stopwatch.getClockDelay();
+    }
+
+    /**
+     * Set a custom clock delay to increase/decrease how often the display and listener are updated.
+     * The timer still completes at its exact deadline, so a long delay such as 1000ms does not delay completion.
+     *
+     * @param clockDelay clock delay in milliseconds (default : 100ms)
+     * @since 2.0
+     */
+    public void setClockDelay(long clockDelay) {
+        stopwatch.setClockDelay(clockDelay);
+    }
+
+    /**
+     * Set a journal which records the events of this timer so that it can be recovered if the process dies.
+     *
+     * @param journal the journal to record events in. Can be null.
+     * @see SplitJournal#recover(Timer)
+     * @since 2.0
+     */
+    public void setJournal(SplitJournal journal) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setJournal(journal));
+            return;
+        }
+        this.journal = journal;
+        stopwatch.setJournal(journal);
+    }
+
+    /**
+     * Set stats which measure how late every tick of this timer runs and how long its listeners take.
+     * Updates of a display without any listener and the completion of the timer are recorded as ticks too.
+     *
+     * @param tickStats the stats to record ticks in, or null to stop measuring (default : null)
+     * @see Stopwatch#setTickStats(TickStats)
+     * @since 2.0
+     */
+    public void setTickStats(TickStats tickStats) {
+        stopwatch.setTickStats(tickStats);
+    }
+
+    /**
+     * Returns the stats which measure the ticks of this timer.
+     *
+     * @return the tick stats, or null if none are set
+     * @since 2.0
+     */
+    public TickStats getTickStats() {
+        return stopwatch.getTickStats();
+    }
+
+    /**
+     * Returns the stopwatch measuring the elapsed time of this timer.
+     *
+     * @return the underlying stopwatch
+     * @since 2.0
+     */
+    Stopwatch getStopwatch() {
+        return stopwatch;
+    }
+
+    /**
+     * Set the scheduler which drives the clock of this timer.
+     *
+     * @param scheduler the scheduler to tick with
+     * @throws IllegalStateException if the timer has already been started.
+     * @see Stopwatch#setTickScheduler(TickScheduler)
+     * @since 2.0
+     */
+    public void setTickScheduler(TickScheduler scheduler) {
+        stopwatch.setTickScheduler(scheduler);
+    }
+
+    /** Returns true if debug mode is enabled
+     * @return the current boolean status of debug mode
+     * @since 1.2
+     */
+    @SuppressWarnings("unused")
+    public boolean isDebugMode() {
+        return debugMode;
+    }
+
+    /** Set debug mode to print debug log messages in the logcat
+     * @param debugMode the boolean status to set the debug mode
+     */
+    @SuppressWarnings("unused")
+    public void setDebugMode(boolean debugMode) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setDebugMode(debugMode));
+            return;
+        }
+        this.debugMode = debugMode;
+        updateScheduling();
+    }
+
+    /**
+     * Used to set the display which is auto-updated on clock ticks whenever the shown text changes.
+     *
+     * @param display the display to update. Can be null.
+     * @since 2.0
+     */
+    public void setDisplay(TimeDisplay display) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setDisplay(display));
+            return;
+        }
+        this.display = display;
+        binding.invalidate();
+        updateScheduling();
+    }
+
+    /**
+     * Used to set an OnTickListener to listen to clock events
+     *
+     * @param onTickListener an instance of Timer.OnTickListener
+     * @see OnTickListener
+     * @since 1.2
+     */
+    public void setOnTickListener(OnTickListener onTickListener) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> setOnTickListener(onTickListener));
+            return;
+        }
+        this.onTickListener = onTickListener;
+        updateScheduling();
+    }
+
+    /**
+     * Add a listener which is called every period while the timer is running, and when it completes.
+     * Like {@link Stopwatch#addOnTickListener(Stopwatch.OnTickListener, long)}, every listener keeps its own deadlines and the timer only wakes up when one of them is due.
+     *
+     * @param listener the listener to add
+     * @param period   the delay between ticks of this listener in milliseconds
+     * @throws IllegalArgumentException if the period is not positive
+     * @see #removeOnTickListener(OnTickListener)
+     * @since 2.0
+     */
+    public void addOnTickListener(OnTickListener listener, long period) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> addOnTickListener(listener, period));
+            return;
+        }
+        if (listener == null)
+            throw new NullPointerException("listener == null");
+        PeriodicTicker periodicTicker = new PeriodicTicker(listener);
+        stopwatch.addOnTickListener(periodicTicker, period);
+        PeriodicTicker[] tickers = Arrays.copyOf(periodicTickers, periodicTickers.length + 1);
+        tickers[periodicTickers.length] = periodicTicker;
+        periodicTickers = tickers;
+    }
+
+    /**
+     * Remove a listener added with {@link #addOnTickListener(OnTickListener, long)}.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was removed, false if it was not added
+     * @since 2.0
+     */
+    public boolean removeOnTickListener(OnTickListener listener) {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            boolean[] removed = new boolean[1];
+            scheduler.invoke(() -> removed[0] = removeOnTickListener(listener));
+            return removed[0];
+        }
+        PeriodicTicker[] tickers = periodicTickers;
+        for (int i = 0; i < tickers.length; i++) {
+            if (tickers[i].listener == listener) {
+                stopwatch.removeOnTickListener(tickers[i]);
+                PeriodicTicker[] remaining = new PeriodicTicker[tickers.length - 1];
+                System.arraycopy(tickers, 0, remaining, 0, i);
+                System.arraycopy(tickers, i + 1, remaining, i, remaining.length - i);
+                periodicTickers = remaining;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Used to start the timer.
+     * Should only be called if the timer is not already started.
+     *
+     * @since 1.2
+     */
+    public void start() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> start());
+            return;
+        }
+        if (duration > 0) {
+            stopwatch.start();
+            if (journal != null)
+                journal.append(SplitJournal.DURATION, stopwatch.readElapsedTimeNanos(), duration);
+            scheduleCompletion();
+            updateScheduling();
+        } else
+            throw new IllegalStateException("Duration not set");
+    }
+
+    /**
+     * Used to stop the timer.
+     * Should only be called if the timer is already started.
+     * A timer which has already reached its deadline completes instead, so that its completion is never lost.
+     *
+     * @since 1.2
+     */
+    public void stop() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(this::stop);
+            return;
+        }
+        if (isStarted() && !isPaused() && stopwatch.readElapsedTimeNanos() >= duration * 1000000) {
+            scheduler.cancel(completion);
+            complete();
+            return;
+        }
+        stopwatch.stop();
+        stopwatch.getTickScheduler().cancel(completion);
+        updateScheduling();
+    }
+
+    /**
+     * Used to pause the timer.
+     * Should only be called if the timer is currently running
+     *
+     * @since 1.2
+     */
+    public void pause() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> pause());
+            return;
+        }
+        stopwatch.pause();
+        stopwatch.getTickScheduler().cancel(completion);
+        updateScheduling();
+    }
+
+    /**
+     * Used to resume a paused timer.
+     * Should only be used after a pause call.
+     *
+     * @since 1.2
+     */
+    public void resume() {
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!scheduler.isDispatchThread()) {
+            scheduler.invoke(() -> resume());
+            return;
+        }
+        stopwatch.resume();
+        scheduleCompletion();
+        updateScheduling();
+    }
+
+    /**
+     * Schedules the completion of a timer which has been restored from a journal.
+     *
+     * @since 2.0
+     */
+    void restored() {
+        if (isStarted() && !isPaused())
+            scheduleCompletion();
+        updateScheduling();
+    }
+
+    /**
+     * Schedules the completion of this timer after the time remaining.
+     *
+     * @since 2.0
+     */
+    private void scheduleCompletion() {
+        stopwatch.getTickScheduler().schedule(completion, duration * 1000000 - stopwatch.readElapsedTimeNanos());
+    }
+
+    /**
+     * Called by the scheduler once the timer has run its full duration, completing it and measuring the completion in the tick stats.
+     *
+     * @since 2.0
+     */
+    private void expire() {
+        TickStats stats = stopwatch.getTickStats();
+        TimeSource timeSource = stopwatch.getTickScheduler().getTimeSource();
+        long start = stats == null ? 0 : timeSource.nanoTime();
+        complete();
+        if (stats != null)
+            stats.record(start - completion.getDeadline(), 0, timeSource.nanoTime() - start);
+    }
+
+    /**
+     * Completes the timer, updating its display and calling its listeners.
+     *
+     * @since 2.0
+     */
+    private void complete() {
+        updateDisplay(0);
+        stopwatch.stop();
+        updateScheduling();
+
+        if (onTickListener != null)
+            onTickListener.onComplete(this);
+        for (PeriodicTicker periodicTicker : periodicTickers)
+            periodicTicker.listener.onComplete(this);
+    }
+
+    /**
+     * Registers for the ticks of the stopwatch only while they are observed.
+     * A display on its own is updated when its text changes, and without any observer nothing but the completion is scheduled.
+     *
+     * @since 2.0
+     */
+    private void updateScheduling() {
+        boolean ticking = onTickListener != null || debugMode;
+        stopwatch.setOnTickListener(ticking ? ticker : null);
+
+        TickScheduler scheduler = stopwatch.getTickScheduler();
+        if (!ticking && display != null && isStarted() && !isPaused()) {
+            if (!displayUpdate.isScheduled())
+                scheduler.schedule(displayUpdate, 0);
+        } else
+            scheduler.cancel(displayUpdate);
+    }
+
+    /**
+     * Shows the remaining time and schedules the next update for when the text changes, but not sooner than the clock delay.
+     *
+     * @since 2.0
+     */
+    private void refreshDisplay() {
+        TickStats stats = stopwatch.getTickStats();
+        TimeSource timeSource = stopwatch.getTickScheduler().getTimeSource();
+        long start = stats == null ? 0 : timeSource.nanoTime();
+        long elapsed = stopwatch.readElapsedTimeNanos();
+        long remaining = duration - elapsed / 1000000;
+        updateDisplay(remaining);
+        if (stats != null)
+            stats.record(start - displayUpdate.getDeadline(), 0, timeSource.nanoTime() - start);
+        long next = DisplayBinding.nextChange(remaining, true);
+        if (next >= 0)
+            stopwatch.getTickScheduler().schedule(displayUpdate, Math.max((duration - next) * 1000000 - elapsed, getClockDelay() * 1000000));
+    }
+
+    private void onTick(Stopwatch stopwatch) {
+        long remaining = getRemainingTime();
+
+        if(debugMode)
+            LOG.info("Elapsed : "+(duration-remaining)+"; Remaining : "+remaining);
+
+        if (onTickListener != null)
+            onTickListener.onTick(this);
+
+        updateDisplay(remaining);
+    }
+
+    /**
+     * Displays the given time on the display (if set) without allocating a new String, unless it already shows the same text.
+     *
+     * @param remainingTime the time in milliseconds to display
+     * @since 2.0
+     */
+    private void updateDisplay(long remainingTime) {
+        binding.render(display, remainingTime);
+    }
+
+    /**
+     * Passes the ticks of a listener added with a period on to the timer's listener.
+     *
+     * @since 2.0
+     */
+    private final class PeriodicTicker implements Stopwatch.OnTickListener {
+        private final OnTickListener listener;
+
+        PeriodicTicker(OnTickListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onTick(Stopwatch stopwatch) {
+            listener.onTick(Timer.this);
+        }
+    }
+
+    /**
+     * Listener interface to listen for important clock events with the timer.
+     *
+     * @since 1.2
+     */
+    public interface OnTickListener {
+        /**
+         * Called every clock cycle update
+         *
+         * @param timer the timer instance which has been updated
+         * @since 1.2
+         */
+        void onTick(Timer timer);
+
+        /**
+         * Called when the timer has been completed (ran its full duration)
+         *
+         * @param timer the timer instance which has completed
+         * @since 1.2
+         */
+        void onComplete(Timer timer);
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.Arrays;
+
+/**
+ * A pool of many count down timers driven by a single scheduled callback.
+ * Unlike a {@link Timer}, a pooled timer is not an object : it is an int handle indexing a few primitive arrays, about 25 bytes per timer.
+ * Running timers are kept in a binary heap ordered by deadline, and the pool only asks its {@link TickScheduler} to wake it up at the earliest deadline.
+ * Starting, pausing, resuming and cancelling a timer takes O(log n) time, and the bulk operations rebuild the heap in O(n).
+ * <p>
+ * Handles of released timers are reused by later calls to {@link #create(long)}, so a handle must not be used after it has been released.
+ * <p>
+ * A pool is not thread safe. Timers complete on the thread of its scheduler, so the pool must only be changed on that thread too,
+ * and changing it on any other thread throws an {@link IllegalStateException} instead of racing with the completions.
+ * To use a pool from another thread, run the code on the scheduler's thread : submit it to {@link ExecutorTickScheduler#getExecutor()},
+ * or post it to a handler of {@code HandlerTickScheduler.getLooper()} on Android. The {@link OnCompleteListener} is already called there.
+ * <pre>
+ * ExecutorTickScheduler scheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+ * TimerPool pool = new TimerPool(scheduler);
+ * scheduler.getExecutor().execute(() -&gt; pool.start(pool.create(1000)));
+ * </pre>
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Timer
+ * @since 2.0
+ */
+public final class TimerPool {
+
+    private static final byte FREE = 0;
+    private static final byte IDLE = 1;
+    private static final byte RUNNING = 2;
+    private static final byte PAUSED = 3;
+    private static final byte FINISHED = 4;
+
+    private final TickScheduler scheduler;
+    private final TimeSource timeSource;
+    private final TimingWheel.Timeout expiry = new TimingWheel.Timeout(this::expire);
+    private OnCompleteListener onCompleteListener;
+
+    /**
+     * Durations in nanoseconds.
+     */
+    private long[] durations;
+    /**
+     * The deadline of a running timer, or the time remaining of a paused timer, in nanoseconds.
+     */
+    private long[] times;
+    private byte[] states;
+    /**
+     * The position of a running timer in the heap, -1 if it is not running. For a released timer, the next released timer.
+     */
+    private int[] positions;
+    private int[] heap;
+    private int heapSize, used, size, firstFree;
+    /**
+     * The deadline the scheduler has been asked to wake up at, Long.MAX_VALUE if none.
+     */
+    private long scheduledDeadline;
+
+    /**
+     * Creates a pool driven by the given scheduler, which also provides the clock the timers are measured with.
+     *
+     * @param scheduler the scheduler which completes the timers of this pool
+     * @since 2.0
+     */
+    public TimerPool(TickScheduler scheduler) {
+        this.scheduler = scheduler;
+        timeSource = scheduler.getTimeSource();
+        durations = new long[16];
+        times = new long[16];
+        states = new byte[16];
+        positions = new int[16];
+        heap = new int[16];
+        heapSize = 0;
+        used = 0;
+        size = 0;
+        firstFree = -1;
+        scheduledDeadline = Long.MAX_VALUE;
+        onCompleteListener = null;
+    }
+
+    /**
+     * Set a listener to be called on the scheduler's thread whenever a timer of this pool completes.
+     *
+     * @param onCompleteListener the listener to call. Can be null.
+     * @since 2.0
+     */
+    public void setOnCompleteListener(OnCompleteListener onCompleteListener) {
+        this.onCompleteListener = onCompleteListener;
+    }
+
+    /**
+     * Returns the number of timers which have been created and not released.
+     *
+     * @return the number of timers in this pool
+     * @since 2.0
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of timers which are counting down.
+     *
+     * @return the number of running timers
+     * @since 2.0
+     */
+    public int getRunningCount() {
+        return heapSize;
+    }
+
+    /**
+     * Creates a timer which has not been started.
+     *
+     * @param duration the duration of the timer in milliseconds
+     * @return the handle of the new timer
+     * @throws IllegalArgumentException if the duration is not positive
+     * @since 2.0
+     */
+    public int create(long duration) {
+        checkThread();
+        if (duration <= 0)
+            throw new IllegalArgumentException("Duration must be positive : " + duration);
+        int timer;
+        if (firstFree >= 0) {
+            timer = firstFree;
+            firstFree = positions[timer];
+        } else {
+            if (used == states.length)
+                grow();
+            timer = used++;
+        }
+        durations[timer] = duration * 1000000;
+        times[timer] = 0;
+        states[timer] = IDLE;
+        positions[timer] = -1;
+        size++;
+        return timer;
+    }
+
+    /**
+     * Releases a timer, cancelling it if it is running. Its handle may be returned again by {@link #create(long)}.
+     *
+     * @param timer the handle of the timer
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public void release(int timer) {
+        checkThread();
+        cancel(timer);
+        states[timer] = FREE;
+        positions[timer] = firstFree;
+        firstFree = timer;
+        size--;
+    }
+
+    /**
+     * Starts a timer from its full duration. A finished or cancelled timer can be started again.
+     *
+     * @param timer the handle of the timer
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @throws IllegalStateException    if the timer is running or paused
+     * @since 2.0
+     */
+    public void start(int timer) {
+        checkThread();
+        checkStartable(timer);
+        times[timer] = timeSource.nanoTime() + durations[timer];
+        states[timer] = RUNNING;
+        push(timer);
+        siftUp(heapSize - 1);
+        scheduleExpiry();
+    }
+
+    /**
+     * Starts several timers at the same time from their full duration, rebuilding the heap once instead of inserting every timer.
+     *
+     * @param timers the handles of the timers to start
+     * @throws IllegalArgumentException if a handle is not a timer of this pool
+     * @throws IllegalStateException    if a timer is running or paused, in which case no timer is started
+     * @since 2.0
+     */
+    public void startAll(int... timers) {
+        checkThread();
+        for (int timer : timers)
+            checkStartable(timer);
+        long now = timeSource.nanoTime();
+        for (int timer : timers) {
+            if (states[timer] == RUNNING)
+                // the same handle was passed twice
+                continue;
+            times[timer] = now + durations[timer];
+            states[timer] = RUNNING;
+            push(timer);
+        }
+        heapify();
+        scheduleExpiry();
+    }
+
+    /**
+     * Pauses a running timer.
+     *
+     * @param timer the handle of the timer
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @throws IllegalStateException    if the timer is not running
+     * @since 2.0
+     */
+    public void pause(int timer) {
+        checkThread();
+        if (state(timer) != RUNNING)
+            throw new IllegalStateException("Not Running");
+        times[timer] = Math.max(0, times[timer] - timeSource.nanoTime());
+        states[timer] = PAUSED;
+        removeAt(positions[timer]);
+        scheduleExpiry();
+    }
+
+    /**
+     * Pauses every running timer of this pool.
+     *
+     * @since 2.0
+     */
+    public void pauseAll() {
+        checkThread();
+        long now = timeSource.nanoTime();
+        for (int i = 0; i < heapSize; i++) {
+            int timer = heap[i];
+            times[timer] = Math.max(0, times[timer] - now);
+            states[timer] = PAUSED;
+            positions[timer] = -1;
+        }
+        heapSize = 0;
+        scheduleExpiry();
+    }
+
+    /**
+     * Resumes a paused timer.
+     *
+     * @param timer the handle of the timer
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @throws IllegalStateException    if the timer is not paused
+     * @since 2.0
+     */
+    public void resume(int timer) {
+        checkThread();
+        if (state(timer) != PAUSED)
+            throw new IllegalStateException("Not Paused");
+        times[timer] += timeSource.nanoTime();
+        states[timer] = RUNNING;
+        push(timer);
+        siftUp(heapSize - 1);
+        scheduleExpiry();
+    }
+
+    /**
+     * Resumes every paused timer of this pool.
+     *
+     * @since 2.0
+     */
+    public void resumeAll() {
+        checkThread();
+        long now = timeSource.nanoTime();
+        for (int timer = 0; timer < used; timer++) {
+            if (states[timer] == PAUSED) {
+                times[timer] += now;
+                states[timer] = RUNNING;
+                push(timer);
+            }
+        }
+        heapify();
+        scheduleExpiry();
+    }
+
+    /**
+     * Cancels a timer, which can be started again from its full duration. Does nothing if it is not running or paused.
+     *
+     * @param timer the handle of the timer
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public void cancel(int timer) {
+        checkThread();
+        byte state = state(timer);
+        if (state == RUNNING) {
+            removeAt(positions[timer]);
+            scheduleExpiry();
+        }
+        if (state == RUNNING || state == PAUSED)
+            states[timer] = IDLE;
+    }
+
+    /**
+     * Cancels every running and paused timer of this pool.
+     *
+     * @since 2.0
+     */
+    public void cancelAll() {
+        checkThread();
+        for (int timer = 0; timer < used; timer++) {
+            if (states[timer] == RUNNING || states[timer] == PAUSED) {
+                states[timer] = IDLE;
+                positions[timer] = -1;
+            }
+        }
+        heapSize = 0;
+        scheduleExpiry();
+    }
+
+    /**
+     * Returns the duration of a timer.
+     *
+     * @param timer the handle of the timer
+     * @return the duration in milliseconds
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public long getDuration(int timer) {
+        state(timer);
+        return durations[timer] / 1000000;
+    }
+
+    /**
+     * Returns the time remaining before a timer completes, as shown by a count down.
+     *
+     * @param timer the handle of the timer
+     * @return the remaining time in milliseconds, rounded up. The full duration if the timer has not been started, 0 if it has finished.
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public long getRemainingTime(int timer) {
+        return (getRemainingTimeNanos(timer) + 999999) / 1000000;
+    }
+
+    /**
+     * Returns the time remaining before a timer completes.
+     *
+     * @param timer the handle of the timer
+     * @return the remaining time in nanoseconds. The full duration if the timer has not been started, 0 if it has finished.
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public long getRemainingTimeNanos(int timer) {
+        switch (state(timer)) {
+            case RUNNING:
+                return Math.max(0, times[timer] - timeSource.nanoTime());
+            case PAUSED:
+                return times[timer];
+            case FINISHED:
+                return 0;
+            default:
+                return durations[timer];
+        }
+    }
+
+    /**
+     * Returns true if the timer has been started and has neither finished nor been cancelled.
+     *
+     * @param timer the handle of the timer
+     * @return true if the timer is running or paused
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public boolean isStarted(int timer) {
+        byte state = state(timer);
+        return state == RUNNING || state == PAUSED;
+    }
+
+    /**
+     * Returns true if the timer is paused.
+     *
+     * @param timer the handle of the timer
+     * @return true if the timer is paused
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public boolean isPaused(int timer) {
+        return state(timer) == PAUSED;
+    }
+
+    /**
+     * Returns true if the timer has run its full duration since it was last started.
+     *
+     * @param timer the handle of the timer
+     * @return true if the timer has finished
+     * @throws IllegalArgumentException if the handle is not a timer of this pool
+     * @since 2.0
+     */
+    public boolean isFinished(int timer) {
+        return state(timer) == FINISHED;
+    }
+
+    /**
+     * Called by the scheduler at the earliest deadline, completes every timer which is due.
+     *
+     * @since 2.0
+     */
+    private void expire() {
+        scheduledDeadline = Long.MAX_VALUE;
+        long now = timeSource.nanoTime();
+        while (heapSize > 0 && times[heap[0]] <= now) {
+            int timer = heap[0];
+            removeAt(0);
+            states[timer] = FINISHED;
+            times[timer] = 0;
+            if (onCompleteListener != null)
+                onCompleteListener.onComplete(this, timer);
+        }
+        scheduleExpiry();
+    }
+
+    /**
+     * Asks the scheduler to wake up at the earliest deadline, unless it already will.
+     *
+     * @since 2.0
+     */
+    private void scheduleExpiry() {
+        if (heapSize == 0) {
+            if (scheduledDeadline != Long.MAX_VALUE) {
+                scheduler.cancel(expiry);
+                scheduledDeadline = Long.MAX_VALUE;
+            }
+            return;
+        }
+        long deadline = times[heap[0]];
+        if (deadline != scheduledDeadline) {
+            scheduledDeadline = deadline;
+            scheduler.schedule(expiry, Math.max(0, deadline - timeSource.nanoTime()));
+        }
+    }
+
+    private byte state(int timer) {
+        if (timer < 0 || timer >= used || states[timer] == FREE)
+            throw new IllegalArgumentException("Unknown timer : " + timer);
+        return states[timer];
+    }
+
+    private void checkThread() {
+        if (!scheduler.isDispatchThread())
+            throw new IllegalStateException("A timer pool can only be changed on the thread of its scheduler");
+    }
+
+    private void checkStartable(int timer) {
+        byte state = state(timer);
+        if (state == RUNNING || state == PAUSED)
+            throw new IllegalStateException("Already Started");
+    }
+
+    private void grow() {
+        int capacity = states.length * 2;
+        durations = Arrays.copyOf(durations, capacity);
+        times = Arrays.copyOf(times, capacity);
+        states = Arrays.copyOf(states, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+    }
+
+    /**
+     * Appends a timer to the heap without restoring the heap order.
+     */
+    private void push(int timer) {
+        heap[heapSize] = timer;
+        positions[timer] = heapSize;
+        heapSize++;
+    }
+
+    private void removeAt(int position) {
+        int removed = heap[position];
+        positions[removed] = -1;
+        int last = heap[--heapSize];
+        if (position == heapSize)
+            return;
+        heap[position] = last;
+        positions[last] = position;
+        if (position > 0 && times[last] < times[heap[(position - 1) >>> 1]])
+            siftUp(position);
+        else
+            siftDown(position);
+    }
+
+    private void heapify() {
+        for (int i = (heapSize >>> 1) - 1; i >= 0; i--)
+            siftDown(i);
+    }
+
+    private void siftUp(int position) {
+        int timer = heap[position];
+        long deadline = times[timer];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int other = heap[parent];
+            if (times[other] <= deadline)
+                break;
+            heap[position] = other;
+            positions[other] = position;
+            position = parent;
+        }
+        heap[position] = timer;
+        positions[timer] = position;
+    }
+
+    private void siftDown(int position) {
+        int timer = heap[position];
+        long deadline = times[timer];
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < heapSize && times[heap[right]] < times[heap[child]])
+                child = right;
+            int other = heap[child];
+            if (deadline <= times[other])
+                break;
+            heap[position] = other;
+            positions[other] = position;
+            position = child;
+        }
+        heap[position] = timer;
+        positions[timer] = position;
+    }
+
+    /**
+     * Interface to listen for the completion of the timers of a pool.
+     *
+     * @since 2.0
+     */
+    public interface OnCompleteListener {
+        /**
+         * Called when a timer has run its full duration.
+         *
+         * @param pool  the pool of the timer
+         * @param timer the handle of the timer which has completed
+         * @since 2.0
+         */
+        void onComplete(TimerPool pool, int timer);
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A registry of named timings which any number of threads can record into at once.
+ * <pre>
+ * TimingRegistry.Timing query = registry.get("query");
+ * long start = query.start();
+ * ...
+ * query.stop(start);
+ * </pre>
+ * Every timing keeps its count, total, min and max in several cells, in the style of {@code LongAdder}, and every thread records into the cell picked by its own probe.
+ * A thread which fails to update its cell because another thread is recording into it moves to another cell, so threads spread over the cells as they contend.
+ * Cells are padded to their own cache lines, so threads recording the same timing in different cells do not slow each other down.
+ * Reading a timing adds up its cells into a {@link Snapshot}, which can reset the cells at the same time.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see ConcurrentStopwatch
+ * @since 2.0
+ */
+public final class TimingRegistry {
+
+    /**
+     * Longs between the start of two cells, 128 bytes, so that no two cells share a cache line or an adjacent line prefetched with it.
+     */
+    private static final int STRIDE = 16;
+    private static final int COUNT = 0;
+    private static final int TOTAL = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+
+    /**
+     * Spreads the first probes of threads started together, as the golden ratio increment of {@code ThreadLocalRandom}.
+     */
+    private static final AtomicInteger probeSeeds = new AtomicInteger();
+    /**
+     * The probe of every thread, a never zero hash which picks its cell in every timing and is rehashed when that cell is contended.
+     */
+    private static final ThreadLocal<int[]> probes = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            int probe = probeSeeds.addAndGet(0x9e3779b9);
+            return new int[]{probe == 0 ? 1 : probe};
+        }
+    };
+
+    private final TimeSource timeSource;
+    private final int cells;
+    private final ConcurrentHashMap<String, Timing> timings;
+
+    /**
+     * Creates a registry which measures time with {@link TimeSource#SYSTEM}, with one cell per available processor.
+     *
+     * @since 2.0
+     */
+    public TimingRegistry() {
+        this(TimeSource.SYSTEM, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a registry which measures time with the given time source.
+     *
+     * @param timeSource the monotonic clock used by {@link Timing#start()} and {@link Timing#stop(long)}
+     * @param cells      the number of cells of every timing, rounded up to a power of two. Usually the number of threads recording at once.
+     * @throws IllegalArgumentException if cells is not between 1 and 65536
+     * @since 2.0
+     */
+    public TimingRegistry(TimeSource timeSource, int cells) {
+        if (cells <= 0 || cells > 1 << 16)
+            throw new IllegalArgumentException("Cells out of range : " + cells);
+        this.timeSource = timeSource;
+        int size = 1;
+        while (size < cells)
+            size <<= 1;
+        this.cells = size;
+        timings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the timing with the given name, creating it the first time.
+     * Look the timing up once and keep it rather than calling this for every recording.
+     *
+     * @param name the name of the timing
+     * @return the timing registered under that name
+     * @since 2.0
+     */
+    public Timing get(String name) {
+        Timing timing = timings.get(name);
+        if (timing == null) {
+            Timing created = new Timing(name);
+            timing = timings.putIfAbsent(name, created);
+            if (timing == null)
+                timing = created;
+        }
+        return timing;
+    }
+
+    /**
+     * Removes a timing from this registry. Threads which still hold it can keep recording into it, but it is no longer part of the snapshots of the registry.
+     *
+     * @param name the name of the timing
+     * @return true if a timing was removed
+     * @since 2.0
+     */
+    public boolean remove(String name) {
+        return timings.remove(name) != null;
+    }
+
+    /**
+     * Returns the number of timings in this registry.
+     *
+     * @return the number of timings
+     * @since 2.0
+     */
+    public int size() {
+        return timings.size();
+    }
+
+    /**
+     * Reads every timing.
+     *
+     * @return a snapshot of every timing, sorted by name
+     * @since 2.0
+     */
+    public List<Snapshot> snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Reads every timing and resets it, so that the next snapshot only covers what is recorded from now on.
+     *
+     * @return a snapshot of every timing, sorted by name
+     * @since 2.0
+     */
+    public List<Snapshot> snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    private List<Snapshot> snapshot(boolean reset) {
+        ArrayList<Snapshot> snapshots = new ArrayList<>(timings.size());
+        for (Timing timing : timings.values())
+            snapshots.add(timing.snapshot(reset));
+        Collections.sort(snapshots, new Comparator<Snapshot>() {
+            @Override
+            public int compare(Snapshot a, Snapshot b) {
+                return a.name.compareTo(b.name);
+            }
+        });
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    /**
+     * A named timing of a {@link TimingRegistry}. All its methods are thread safe, and recording never blocks nor allocates.
+     *
+     * @since 2.0
+     */
+    public final class Timing {
+        private final String name;
+        /**
+         * The cells, one every {@link #STRIDE} longs after a leading pad so that the first cell does not share a line with the array header.
+         */
+        private final AtomicLongArray values;
+
+        private Timing(String name) {
+            this.name = name;
+            values = new AtomicLongArray((cells + 1) * STRIDE);
+            for (int i = 1; i <= cells; i++)
+                values.set(i * STRIDE + MIN, Long.MAX_VALUE);
+        }
+
+        /**
+         * Returns the name of this timing.
+         *
+         * @return the name it was registered under
+         * @since 2.0
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Reads the clock of the registry, to be passed to {@link #stop(long)}.
+         *
+         * @return the start time in nanoseconds
+         * @since 2.0
+         */
+        public long start() {
+            return timeSource.nanoTime();
+        }
+
+        /**
+         * Records the time since a call of {@link #start()}.
+         *
+         * @param start the value returned by {@link #start()}
+         * @return the recorded time in nanoseconds
+         * @since 2.0
+         */
+        public long stop(long start) {
+            long time = Math.max(0, timeSource.nanoTime() - start);
+            record(time);
+            return time;
+        }
+
+        /**
+         * Records a time measured elsewhere.
+         *
+         * @param nanos the time to record, in nanoseconds
+         * @throws IllegalArgumentException if the time is negative
+         * @since 2.0
+         */
+        public void record(long nanos) {
+            if (nanos < 0)
+                throw new IllegalArgumentException("Negative time : " + nanos);
+            int[] probe = probes.get();
+            int cell = (probe[0] & (cells - 1)) * STRIDE + STRIDE;
+            long total = values.get(cell + TOTAL);
+            if (!values.compareAndSet(cell + TOTAL, total, total + nanos)) {
+                // another thread is recording into this cell, move to another one for the next recordings
+                probe[0] = advanceProbe(probe[0]);
+                values.getAndAdd(cell + TOTAL, nanos);
+            }
+            values.getAndIncrement(cell + COUNT);
+            long min = values.get(cell + MIN);
+            while (nanos < min && !values.compareAndSet(cell + MIN, min, nanos))
+                min = values.get(cell + MIN);
+            long max = values.get(cell + MAX);
+            while (nanos > max && !values.compareAndSet(cell + MAX, max, nanos))
+                max = values.get(cell + MAX);
+        }
+
+        /**
+         * Reads this timing by adding up its cells.
+         *
+         * @return a snapshot of this timing
+         * @since 2.0
+         */
+        public Snapshot snapshot() {
+            return snapshot(false);
+        }
+
+        /**
+         * Reads this timing and resets it. Nothing recorded is lost or counted twice, but the cells are reset one after another,
+         * so a recording made during the reset may have its time in this snapshot and its count, min or max in the next one.
+         *
+         * @return a snapshot of this timing
+         * @since 2.0
+         */
+        public Snapshot snapshotAndReset() {
+            return snapshot(true);
+        }
+
+        private Snapshot snapshot(boolean reset) {
+            long count = 0, total = 0, min = Long.MAX_VALUE, max = 0;
+            for (int cell = STRIDE; cell < values.length(); cell += STRIDE) {
+                // a recording adds its time before its count and the count is read first, so without a reset the total covers every counted recording
+                if (reset) {
+                    count += values.getAndSet(cell + COUNT, 0);
+                    total += values.getAndSet(cell + TOTAL, 0);
+                    min = Math.min(min, values.getAndSet(cell + MIN, Long.MAX_VALUE));
+                    max = Math.max(max, values.getAndSet(cell + MAX, 0));
+                } else {
+                    count += values.get(cell + COUNT);
+                    total += values.get(cell + TOTAL);
+                    min = Math.min(min, values.get(cell + MIN));
+                    max = Math.max(max, values.get(cell + MAX));
+                }
+            }
+            return new Snapshot(name, count, total, count == 0 ? 0 : min, max);
+        }
+    }
+
+    /**
+     * Moves a probe to another cell with a xorshift, as {@code ThreadLocalRandom.advanceProbe}.
+     */
+    private static int advanceProbe(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+
+    /**
+     * The count, total, min and max of a timing when it was read. The fields are read one after another, so a recording in progress may show up in the total but not yet in the count.
+     *
+     * @since 2.0
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long count, totalTime, minTime, maxTime;
+
+        Snapshot(String name, long count, long totalTime, long minTime, long maxTime) {
+            this.name = name;
+            this.count = count;
+            this.totalTime = totalTime;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+        /**
+         * @return the name of the timing
+         * @since 2.0
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of recorded times
+         * @since 2.0
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the sum of the recorded times in nanoseconds
+         * @since 2.0
+         */
+        public long getTotalTimeNanos() {
+            return totalTime;
+        }
+
+        /**
+         * @return the shortest recorded time in nanoseconds, 0 if nothing was recorded
+         * @since 2.0
+         */
+        public long getMinTimeNanos() {
+            return minTime;
+        }
+
+        /**
+         * @return the longest recorded time in nanoseconds
+         * @since 2.0
+         */
+        public long getMaxTimeNanos() {
+            return maxTime;
+        }
+
+        /**
+         * @return the mean recorded time in nanoseconds, 0 if nothing was recorded
+         * @since 2.0
+         */
+        public double getMeanTimeNanos() {
+            return count == 0 ? 0 : (double) totalTime / count;
+        }
+
+        @Override
+        public String toString() {
+            return name + " : count=" + count
+                    + ", total=" + totalTime / 1000 + "us"
+                    + ", mean=" + (long) getMeanTimeNanos() / 1000 + "us"
+                    + ", min=" + minTime / 1000 + "us"
+                    + ", max=" + maxTime / 1000 + "us";
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+/**
+ * A hierarchical timing wheel which keeps track of a large number of deadlines.
+ * Scheduling, cancelling and expiring a timeout are all O(1) amortized, so the cost of advancing the wheel depends on the number of timeouts which actually expire and not on the number of pending ones.
+ * <p>
+ * Time is divided into ticks of a fixed length. Each level of the wheel has 64 slots, a slot on level L spanning 64^L ticks, and a bitmap of its occupied slots is kept so that empty stretches of time are skipped without visiting them.
+ * Timeouts are moved down a level when time reaches the start of their slot, until they expire from the lowest level.
+ * <p>
+ * This class is not thread safe.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Timer
+ * @since 2.0
+ */
+final class TimingWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+    /**
+     * Bucket holding the timeouts which are too far away to fit in the wheel.
+     */
+    private static final int OVERFLOW = LEVELS * WHEEL_SIZE;
+    private static final int NOT_SCHEDULED = -1;
+
+    private final long tickNanos;
+    private final long origin;
+    private final Timeout[] buckets;
+    private final long[] occupied;
+    private long currentTick;
+    /**
+     * A lower bound for the ticks of the timeouts in the overflow bucket.
+     */
+    private long overflowTick;
+    private int size;
+
+    /**
+     * Creates a wheel which starts at the given time.
+     *
+     * @param tickNanos the length of a tick in nanoseconds. Timeouts expire on the first tick at or after their deadline.
+     * @param origin    the time in nanoseconds of tick 0
+     */
+    TimingWheel(long tickNanos, long origin) {
+        if (tickNanos <= 0)
+            throw new IllegalArgumentException("Tick must be positive");
+        this.tickNanos = tickNanos;
+        this.origin = origin;
+        buckets = new Timeout[OVERFLOW + 1];
+        occupied = new long[LEVELS];
+        currentTick = 0;
+        overflowTick = Long.MAX_VALUE;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of pending timeouts.
+     *
+     * @return the number of scheduled timeouts which have not expired or been cancelled
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time at which the earliest pending timeout expires.
+     * Timeouts on a lower level always expire before those on a higher one, so only the first occupied slot of the lowest occupied level has to be searched.
+     * If every timeout is beyond the range of the wheel, the time at which the earliest of them is moved into the wheel is returned instead.
+     *
+     * @return the time in nanoseconds of the tick of the earliest timeout, Long.MAX_VALUE if there are no timeouts
+     */
+    long nextDeadline() {
+        if (size == 0)
+            return Long.MAX_VALUE;
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            long ahead = ahead(level);
+            if (ahead == 0)
+                continue;
+            for (Timeout timeout = buckets[level * WHEEL_SIZE + Long.numberOfTrailingZeros(ahead)]; timeout != null; timeout = timeout.next)
+                next = Math.min(next, timeout.tick);
+            break;
+        }
+        if (next == Long.MAX_VALUE)
+            next = nextEventTick();
+        if (next > Long.MAX_VALUE / tickNanos)
+            return Long.MAX_VALUE;
+        return origin + next * tickNanos;
+    }
+
+    /**
+     * Schedules a timeout to expire at the given deadline, replacing its previous deadline if it was already scheduled.
+     * A deadline in the past expires on the next advance.
+     *
+     * @param timeout  the timeout to schedule
+     * @param deadline the time in nanoseconds at which it should expire
+     */
+    void schedule(Timeout timeout, long deadline) {
+        if (timeout.bucket != NOT_SCHEDULED)
+            cancel(timeout);
+        long offset = deadline - origin;
+        long tick = offset <= 0 ? 0 : (offset - 1) / tickNanos + 1;
+        timeout.deadline = deadline;
+        timeout.tick = Math.max(tick, currentTick + 1);
+        insert(timeout);
+        size++;
+    }
+
+    /**
+     * Cancels a timeout. Does nothing if it is not scheduled.
+     *
+     * @param timeout the timeout to cancel
+     */
+    void cancel(Timeout timeout) {
+        if (timeout.bucket == NOT_SCHEDULED)
+            return;
+        unlink(timeout);
+        size--;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and runs every timeout which is due, in order of their deadlines' ticks.
+     * Timeouts may schedule or cancel other timeouts while they run.
+     *
+     * @param now the current time in nanoseconds
+     * @return the number of timeouts which expired
+     */
+    int advance(long now) {
+        long target = (now - origin) / tickNanos;
+        int expired = 0;
+        while (currentTick < target) {
+            long next = nextEventTick();
+            if (next > target) {
+                currentTick = target;
+                break;
+            }
+            currentTick = next;
+            cascade();
+            expired += expire();
+        }
+        return expired;
+    }
+
+    /**
+     * Finds the next tick at which a slot has to be cascaded or expired.
+     * Every timeout on level L lies in a slot after the current position of that level, so the first occupied slot after it is the next event on that level.
+     */
+    private long nextEventTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            long ahead = ahead(level);
+            if (ahead == 0)
+                continue;
+            int shift = level * WHEEL_BITS;
+            long base = (currentTick >>> (shift + WHEEL_BITS)) << (shift + WHEEL_BITS);
+            long tick = base + ((long) Long.numberOfTrailingZeros(ahead) << shift);
+            if (tick < next)
+                next = tick;
+        }
+        if (buckets[OVERFLOW] != null) {
+            int shift = LEVELS * WHEEL_BITS;
+            long wrap = Math.max(((currentTick >>> shift) + 1) << shift, (overflowTick >>> shift) << shift);
+            if (wrap < next)
+                next = wrap;
+        }
+        return next;
+    }
+
+    /**
+     * Returns the occupied slots of a level which lie after its current position.
+     */
+    private long ahead(int level) {
+        int digit = (int) ((currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        return digit == WHEEL_MASK ? 0 : occupied[level] & (-1L << (digit + 1));
+    }
+
+    /**
+     * Moves every timeout in a slot which starts at the current tick down to the level it now belongs to.
+     */
+    private void cascade() {
+        if ((currentTick & ((1L << (LEVELS * WHEEL_BITS)) - 1)) == 0) {
+            overflowTick = Long.MAX_VALUE;
+            reinsert(OVERFLOW);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = level * WHEEL_BITS;
+            if ((currentTick & ((1L << shift) - 1)) == 0)
+                reinsert(level * WHEEL_SIZE + (int) ((currentTick >>> shift) & WHEEL_MASK));
+        }
+    }
+
+    private void reinsert(int bucket) {
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            unlink(timeout);
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    private int expire() {
+        int bucket = (int) (currentTick & WHEEL_MASK);
+        int expired = 0;
+        Timeout timeout;
+        while ((timeout = buckets[bucket]) != null) {
+            unlink(timeout);
+            size--;
+            expired++;
+            timeout.task.run();
+        }
+        return expired;
+    }
+
+    /**
+     * Links a timeout into the lowest level on which it shares all higher digits with the current tick.
+     */
+    private void insert(Timeout timeout) {
+        long difference = timeout.tick ^ currentTick;
+        int bucket = OVERFLOW;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * WHEEL_BITS;
+            if ((difference >>> (shift + WHEEL_BITS)) == 0) {
+                int slot = (int) ((timeout.tick >>> shift) & WHEEL_MASK);
+                bucket = level * WHEEL_SIZE + slot;
+                occupied[level] |= 1L << slot;
+                break;
+            }
+        }
+        if (bucket == OVERFLOW && timeout.tick < overflowTick)
+            overflowTick = timeout.tick;
+        Timeout head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null)
+            head.prev = timeout;
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        int bucket = timeout.bucket;
+        if (timeout.prev != null)
+            timeout.prev.next = timeout.next;
+        else
+            buckets[bucket] = timeout.next;
+        if (timeout.next != null)
+            timeout.next.prev = timeout.prev;
+        if (buckets[bucket] == null && bucket != OVERFLOW)
+            occupied[bucket >>> WHEEL_BITS] &= ~(1L << (bucket & WHEEL_MASK));
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = NOT_SCHEDULED;
+    }
+
+    /**
+     * A task which runs once when its deadline is reached. A timeout can be scheduled again after it expires or is cancelled.
+     */
+    static final class Timeout {
+        private final Runnable task;
+        private long deadline, tick;
+        private Timeout prev, next;
+        private int bucket;
+
+        Timeout(Runnable task) {
+            this.task = task;
+            bucket = NOT_SCHEDULED;
+        }
+
+        boolean isScheduled() {
+            return bucket != NOT_SCHEDULED;
+        }
+
+        /**
+         * Returns the deadline of this timeout.
+         *
+         * @return the time in nanoseconds at which this timeout was last scheduled to expire
+         */
+        long getDeadline() {
+            return deadline;
+        }
+    }
+}
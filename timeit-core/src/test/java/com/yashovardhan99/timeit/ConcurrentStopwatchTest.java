@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentStopwatch}.
+ */
+public class ConcurrentStopwatchTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final ExecutorTickScheduler scheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+    private final ConcurrentStopwatch stopwatch = new ConcurrentStopwatch(clock, scheduler);
+
+    @After
+    public void shutDown() {
+        scheduler.getExecutor().shutdownNow();
+    }
+
+    @Test
+    public void transitions() {
+        stopwatch.start();
+        clock.advance(5, TimeUnit.SECONDS);
+        stopwatch.pause();
+        clock.advance(1, TimeUnit.HOURS);
+        assertTrue(stopwatch.isPaused());
+        assertEquals(5000, stopwatch.getElapsedTime());
+        stopwatch.resume();
+        clock.advance(2, TimeUnit.SECONDS);
+        stopwatch.split();
+        clock.advance(1, TimeUnit.SECONDS);
+
+        ConcurrentStopwatch.Snapshot snapshot = stopwatch.snapshot();
+        assertTrue(snapshot.isStarted());
+        assertEquals(TimeUnit.SECONDS.toNanos(8), snapshot.getElapsedTimeNanos());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), snapshot.getLapTimeNanos());
+        assertEquals(1, snapshot.getSplitCount());
+
+        stopwatch.stop();
+        clock.advance(1, TimeUnit.SECONDS);
+        assertFalse(stopwatch.isStarted());
+        assertEquals(8000, stopwatch.getElapsedTime());
+    }
+
+    @Test
+    public void concurrentSplitsStayOrdered() throws InterruptedException {
+        final int threads = 4, perThread = 20000;
+        stopwatch.start();
+        final CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads + 1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++)
+                    stopwatch.split();
+            });
+        }
+        workers[threads] = new Thread(() -> {
+            try {
+                go.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int i = 0; i < perThread; i++)
+                clock.advance(1, TimeUnit.MICROSECONDS);
+        });
+        for (Thread worker : workers)
+            worker.start();
+        go.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        List<Split> splits = stopwatch.getSplits();
+        assertEquals(threads * perThread, splits.size());
+        assertEquals(threads * perThread, stopwatch.snapshot().getSplitCount());
+        long previous = 0;
+        for (Split split : splits) {
+            assertEquals(previous, split.getSplitTimeNanos() - split.getLapTimeNanos());
+            assertTrue(split.getLapTimeNanos() >= 0);
+            previous = split.getSplitTimeNanos();
+        }
+    }
+
+    @Test
+    public void splitsRacingStopAreNeverLost() throws InterruptedException {
+        final int threads = 3, sessions = 2000;
+        // yielding on every clock read lets a stop run between the status check and the linking of a split
+        final ConcurrentStopwatch stopwatch = new ConcurrentStopwatch(() -> {
+            Thread.yield();
+            return clock.nanoTime();
+        }, new TickScheduler(clock) {
+            @Override
+            protected void requestDispatch(long delay) {
+            }
+        });
+        final Set<Split> kept = Collections.newSetFromMap(new IdentityHashMap<Split, Boolean>());
+        final List<List<Split>> returned = new ArrayList<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final List<Split> own = new ArrayList<>();
+            returned.add(own);
+            workers[t] = new Thread(() -> {
+                while (!done.get()) {
+                    try {
+                        own.add(stopwatch.split());
+                    } catch (IllegalStateException e) {
+                        // stopped at the time of the split
+                    }
+                }
+            });
+        }
+        for (Thread worker : workers)
+            worker.start();
+        for (int i = 0; i < sessions; i++) {
+            stopwatch.start();
+            clock.advance(1, TimeUnit.MICROSECONDS);
+            stopwatch.stop();
+            // read while stopped : a split linked after the stop would be missing from this list
+            List<Split> splits = stopwatch.getSplits();
+            long previous = 0;
+            for (Split split : splits) {
+                assertEquals(previous, split.getSplitTimeNanos() - split.getLapTimeNanos());
+                previous = split.getSplitTimeNanos();
+            }
+            assertTrue(previous <= stopwatch.getElapsedTimeNanos());
+            kept.addAll(splits);
+        }
+        done.set(true);
+        for (Thread worker : workers)
+            worker.join();
+
+        int count = 0;
+        for (List<Split> own : returned) {
+            for (Split split : own)
+                assertTrue("Split " + split + " was returned but lost", kept.contains(split));
+            count += own.size();
+        }
+        assertEquals(kept.size(), count);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link IntervalProgram} and {@link IntervalTimer}.
+ */
+public class IntervalTimerTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private long requested = -1;
+
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+            requested = clock.nanoTime() + delay;
+        }
+    };
+
+    @Test
+    public void nestedBlocksAreExpanded() {
+        IntervalProgram program = new IntervalProgram.Builder()
+                .segment("Warm up", 1000)
+                .repeat(3)
+                    .repeat(2)
+                        .segment("Work", 200)
+                        .segment("Rest", 100)
+                    .end()
+                    .segment("Break", 500)
+                .end()
+                .segment("Cool down", 1000)
+                .build();
+        assertEquals(2 + 3 * (2 * 2 + 1), program.getSegmentCount());
+        assertEquals(2000 + 3 * (2 * 300 + 500), program.getTotalDuration());
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < program.getSegmentCount(); i++)
+            names.append(program.getSegmentName(i).charAt(0));
+        assertEquals("WWRWRBWRWRBWRWRBC", names.toString());
+        assertEquals(6, program.getSegmentAt(TimeUnit.MILLISECONDS.toNanos(2100)));
+        assertEquals(program.getSegmentCount(), program.getSegmentAt(TimeUnit.MILLISECONDS.toNanos(5300)));
+    }
+
+    @Test
+    public void repeatsAreNotExpanded() {
+        // a million segments, kept as three blocks
+        IntervalProgram program = new IntervalProgram.Builder()
+                .segment("Warm up", 1000)
+                .repeat(1000)
+                    .repeat(500)
+                        .segment("Work", 20)
+                        .segment("Rest", 10)
+                    .end()
+                .end()
+                .build();
+        assertEquals(1 + 1000 * 500 * 2, program.getSegmentCount());
+        assertEquals(1000 + 1000 * 500 * 30, program.getTotalDuration());
+        int segment = 1 + 700 * 1000 + 2 * 123 + 1;
+        long start = TimeUnit.MILLISECONDS.toNanos(1000 + 700 * 500 * 30 + 123 * 30 + 20);
+        assertEquals("Rest", program.getSegmentName(segment));
+        assertEquals(start, program.getSegmentStartNanos(segment));
+        assertEquals(start + TimeUnit.MILLISECONDS.toNanos(10), program.getSegmentEndNanos(segment));
+        assertEquals(segment, program.getSegmentAt(start));
+        assertEquals(segment, program.getSegmentAt(start + TimeUnit.MILLISECONDS.toNanos(10) - 1));
+        assertEquals(segment + 1, program.getSegmentAt(start + TimeUnit.MILLISECONDS.toNanos(10)));
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, program.getSegmentAt(program.getSegmentStartNanos(i)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void segmentCountIsCapped() {
+        new IntervalProgram.Builder()
+                .repeat(1 << 16)
+                    .repeat(1 << 16)
+                        .segment("Work", 1)
+                    .end()
+                .end();
+    }
+
+    @Test
+    public void listenersCanRestartTheProgram() {
+        IntervalProgram program = new IntervalProgram.Builder()
+                .repeat(5)
+                    .segment("Work", 100)
+                .end()
+                .build();
+        final List<Integer> started = new ArrayList<>();
+        final IntervalTimer timer = new IntervalTimer(program, clock, scheduler);
+        timer.setOnSegmentListener(new IntervalTimer.OnSegmentListener() {
+            @Override
+            public void onSegmentStart(IntervalTimer timer, int segment) {
+                started.add(segment);
+                if (started.size() == 3) {
+                    timer.stop();
+                    timer.start();
+                }
+            }
+
+            @Override
+            public void onComplete(IntervalTimer timer) {
+            }
+        });
+        timer.start();
+        // a late wake up, three segments have ended
+        clock.setNanoTime(requested + TimeUnit.MILLISECONDS.toNanos(250));
+        requested = -1;
+        scheduler.dispatch();
+
+        // the segments of the old run past the restart are not reported
+        assertEquals(Arrays.asList(0, 1, 2, 0), started);
+        assertEquals(0, timer.getSegment());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), requested - clock.nanoTime(), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void segmentsDoNotDrift() {
+        IntervalProgram program = new IntervalProgram.Builder()
+                .repeat(50)
+                    .segment("Work", 333)
+                    .segment("Rest", 333)
+                .end()
+                .build();
+        final List<Long> starts = new ArrayList<>();
+        final long[] completed = {-1};
+        IntervalTimer timer = new IntervalTimer(program, clock, scheduler);
+        timer.setOnSegmentListener(new IntervalTimer.OnSegmentListener() {
+            @Override
+            public void onSegmentStart(IntervalTimer timer, int segment) {
+                starts.add(clock.nanoTime());
+            }
+
+            @Override
+            public void onComplete(IntervalTimer timer) {
+                completed[0] = clock.nanoTime();
+            }
+        });
+        timer.start();
+        while (requested >= 0) {
+            // every boundary is dispatched 5 ms late
+            clock.setNanoTime(requested + TimeUnit.MILLISECONDS.toNanos(5));
+            requested = -1;
+            scheduler.dispatch();
+        }
+
+        assertEquals(100, starts.size());
+        for (int i = 1; i < starts.size(); i++)
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(333 * i + 5), (long) starts.get(i));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(33300 + 5), completed[0]);
+        assertEquals(100, timer.getSegment());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (int precision = 1; precision <= 16; precision++) {
+            LatencyHistogram histogram = new LatencyHistogram(precision);
+            histogram.record(Long.MAX_VALUE);
+            Random random = new Random(precision);
+            for (int i = 0; i < 10000; i++) {
+                long value = random.nextLong() >>> (1 + random.nextInt(63));
+                int index = histogram.index(value);
+                long highest = histogram.highestValue(index);
+                assertTrue(value <= highest);
+                assertTrue(index == 0 || histogram.highestValue(index - 1) < value);
+                assertTrue(highest - value <= Math.max(0, value >> (precision - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram other = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (Math.exp(random.nextGaussian() * 2 + 12));
+            (i % 2 == 0 ? histogram : other).record(values[i]);
+        }
+        histogram.add(other);
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getTotalCount());
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact);
+            assertTrue(estimate - exact <= exact / 64 + 1);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link Profiler}.
+ */
+public class ProfilerTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final Profiler profiler = new Profiler(clock);
+
+    @SuppressWarnings("try")
+    private void work() {
+        try (Profiler.Scope outer = profiler.enter("outer")) {
+            clock.advance(10, TimeUnit.MILLISECONDS);
+            try (Profiler.Scope inner = profiler.enter("inner")) {
+                clock.advance(3, TimeUnit.MILLISECONDS);
+            }
+            try (Profiler.Scope inner = profiler.enter("inner")) {
+                clock.advance(2, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Test
+    public void threadsAreMerged() throws InterruptedException {
+        // one thread at a time, since they share the manual clock
+        for (int i = 0; i < 2; i++) {
+            Thread thread = new Thread(this::work);
+            thread.start();
+            thread.join();
+        }
+        Profiler.Node outer = profiler.report().getChild("outer");
+        assertEquals(2, outer.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(30), outer.getTotalTimeNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), outer.getSelfTimeNanos());
+        Profiler.Node inner = outer.getChild("inner");
+        assertEquals(4, inner.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2), inner.getMinTimeNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), inner.getMaxTimeNanos());
+        assertEquals(1, outer.getChildren().size());
+
+        profiler.reset();
+        work();
+        assertEquals(1, profiler.report().getChild("outer").getCount());
+    }
+
+    @Test
+    public void deadThreadsAreRetiredOnce() throws InterruptedException {
+        Thread thread = new Thread(this::work);
+        thread.start();
+        thread.join();
+        assertEquals(1, profiler.report().getChild("outer").getCount());
+        // the retired times are not added again by later reports
+        assertEquals(1, profiler.report().getChild("outer").getCount());
+        assertEquals(2, profiler.report().getChild("outer").getChild("inner").getCount());
+
+        profiler.reset();
+        assertEquals(0, profiler.report().getChild("outer").getCount());
+    }
+
+    @Test
+    public void scopesCloseInOrder() {
+        Profiler.Scope outer = profiler.enter("outer");
+        Profiler.Scope inner = profiler.enter("inner");
+        try {
+            outer.close();
+            fail();
+        } catch (IllegalStateException expected) {
+            // the inner scope is still open
+        }
+        inner.close();
+        outer.close();
+        assertEquals(1, profiler.report().getChild("outer").getChild("inner").getCount());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SplitBuffer}, {@link LapStatistics} and {@link SplitExporter}.
+ */
+public class SplitBufferTest {
+
+    @Test
+    public void growsPastItsInitialCapacity() {
+        SplitBuffer buffer = new SplitBuffer();
+        List<Split> view = buffer.asList();
+        for (int i = 0; i < 1000; i++)
+            buffer.add(i * 2000000L, 2000000L);
+        assertEquals(1000, buffer.size());
+        assertEquals(0, buffer.getDroppedCount());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 2000000L, buffer.getSplitTimeNanos(i));
+            assertEquals(i * 2, buffer.getSplitTime(i));
+            assertEquals(2, buffer.getLapTime(i));
+        }
+        // the list is a view, so it sees later splits
+        assertEquals(1000, view.size());
+        assertEquals(1998, view.get(999).getSplitTime());
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, view.size());
+        buffer.add(5, 5);
+        assertEquals(5, buffer.getSplitTimeNanos(0));
+    }
+
+    @Test
+    public void rejectsIndexesOutOfRange() {
+        SplitBuffer buffer = new SplitBuffer();
+        buffer.add(1, 1);
+        for (int index : new int[]{-1, 1, 16}) {
+            try {
+                buffer.getSplitTimeNanos(index);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+                // only index 0 holds a split
+            }
+        }
+        try {
+            buffer.asList().add(new Split(2, 1));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            // the view is read only
+        }
+    }
+
+    @Test
+    public void ringKeepsLatestSplits() {
+        SplitBuffer buffer = new SplitBuffer();
+        for (int i = 0; i < 50; i++)
+            buffer.add(i, 1);
+        buffer.setLimit(20);
+        assertEquals(20, buffer.size());
+        assertEquals(30, buffer.getDroppedCount());
+        assertEquals(30, buffer.getSplitTimeNanos(0));
+
+        for (int i = 50; i < 1000; i++) {
+            buffer.add(i, 1);
+            assertEquals(20, buffer.size());
+            for (int j = 0; j < 20; j++)
+                assertEquals(i - 19 + j, buffer.getSplitTimeNanos(j));
+        }
+        assertEquals(980, buffer.getDroppedCount());
+
+        buffer.setLimit(0);
+        for (int i = 1000; i < 1100; i++)
+            buffer.add(i, 1);
+        assertEquals(120, buffer.size());
+        for (int j = 0; j < 120; j++)
+            assertEquals(980 + j, buffer.asList().get(j).getSplitTimeNanos());
+    }
+
+    @Test
+    public void statistics() {
+        LapStatistics statistics = new LapStatistics();
+        statistics.setSmoothingFactor(0.5);
+        long[] laps = {4, 8, 6, 2};
+        for (long lap : laps)
+            statistics.add(lap);
+        assertEquals(4, statistics.getCount());
+        assertEquals(2, statistics.getMinNanos());
+        assertEquals(8, statistics.getMaxNanos());
+        assertEquals(5, statistics.getMean(), 1e-9);
+        assertEquals(20.0 / 3, statistics.getVariance(), 1e-9);
+        // 4 -> 6 -> 6 -> 4
+        assertEquals(4, statistics.getMovingAverage(), 1e-9);
+    }
+
+    @Test
+    public void exportRange() throws IOException {
+        SplitBuffer buffer = new SplitBuffer();
+        buffer.setLimit(100);
+        long split = 0;
+        for (int i = 0; i < 150; i++) {
+            long lap = 1000003L * (i % 7) + i;
+            split += lap;
+            buffer.add(split, lap);
+        }
+        // a small buffer so that both formats are flushed many times
+        SplitExporter exporter = new SplitExporter(64);
+
+        StringWriter csv = new StringWriter();
+        exporter.writeCsv(buffer, 10, 90, csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(81, lines.length);
+        assertEquals("split,split_time_ns,lap_time_ns", lines[0]);
+        for (int i = 10; i < 90; i++)
+            assertEquals((50 + i) + "," + buffer.getSplitTimeNanos(i) + "," + buffer.getLapTimeNanos(i), lines[i - 9]);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        exporter.writeBinary(buffer, 10, 90, Channels.newChannel(binary));
+        final int[] read = {10};
+        SplitExporter.readBinary(new ByteArrayInputStream(binary.toByteArray()), (index, splitTime, lapTime) -> {
+            assertEquals(50 + read[0], index);
+            assertEquals(buffer.getSplitTimeNanos(read[0]), splitTime);
+            assertEquals(buffer.getLapTimeNanos(read[0]), lapTime);
+            read[0]++;
+        });
+        assertEquals(90, read[0]);
+    }
+}
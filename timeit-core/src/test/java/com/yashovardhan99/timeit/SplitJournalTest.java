@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SplitJournal}.
+ */
+public class SplitJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+        }
+    };
+
+    @Test
+    public void recoversLatestSession() throws IOException {
+        File file = folder.newFile();
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+            stopwatch.setJournal(journal);
+            stopwatch.start();
+            clock.advance(1, TimeUnit.SECONDS);
+            stopwatch.split();
+            stopwatch.stop();
+
+            // a new session, long enough to grow the file
+            stopwatch.start();
+            for (int i = 0; i < 5000; i++) {
+                clock.advance(1, TimeUnit.MILLISECONDS);
+                stopwatch.split();
+            }
+            stopwatch.pause();
+            clock.advance(1, TimeUnit.HOURS);
+            assertEquals(5002, journal.size());
+        }
+
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Stopwatch recovered = new Stopwatch(clock, scheduler);
+            journal.recover(recovered);
+            assertTrue(recovered.isStarted());
+            assertTrue(recovered.isPaused());
+            assertEquals(5000, recovered.getElapsedTime());
+            assertEquals(5000, recovered.getSplitBuffer().size());
+            assertEquals(1, recovered.getSplitBuffer().getLapTime(4999));
+            assertEquals(5000, recovered.getLapStatistics().getCount());
+
+            recovered.resume();
+            recovered.stop();
+            assertEquals(5004, journal.size());
+        }
+    }
+
+    @Test
+    public void ignoresTornOverwrite() throws IOException {
+        File file = folder.newFile();
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+            stopwatch.setJournal(journal);
+            stopwatch.start();
+            clock.advance(1, TimeUnit.SECONDS);
+            stopwatch.split();
+            stopwatch.split();
+        }
+
+        // the process died while starting the next session : the session number of the first slot was written, but not its type
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            ByteBuffer header = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+            raw.getChannel().read(header, 0);
+            int session = header.getInt(12) + 1;
+            ByteBuffer record = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            record.putInt(0, 0).putInt(4, session);
+            raw.getChannel().write(record, 32);
+            record.putInt(0, session);
+            record.limit(4);
+            raw.getChannel().write(record, 12);
+        }
+
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Stopwatch recovered = new Stopwatch(clock, scheduler);
+            journal.recover(recovered);
+            assertEquals(0, journal.size());
+            assertFalse(recovered.isStarted());
+            assertEquals(0, recovered.getSplitBuffer().size());
+        }
+    }
+
+    @Test
+    public void recoversTimer() throws IOException {
+        File file = folder.newFile();
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Timer timer = new Timer(60000, clock, scheduler);
+            timer.setJournal(journal);
+            timer.start();
+            clock.advance(10, TimeUnit.SECONDS);
+            timer.pause();
+        }
+
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Timer recovered = new Timer(0, clock, scheduler);
+            journal.recover(recovered);
+            assertEquals(60000, recovered.getDuration());
+            assertEquals(50000, recovered.getRemainingTime());
+            assertTrue(recovered.isPaused());
+            recovered.stop();
+            assertFalse(recovered.isStarted());
+        }
+    }
+
+    @Test
+    public void recoversTimerAfterDurationChange() throws IOException {
+        File file = folder.newFile();
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Timer timer = new Timer(30000, clock, scheduler);
+            timer.setJournal(journal);
+            timer.start();
+            clock.advance(10, TimeUnit.SECONDS);
+            timer.setDuration(60000);
+            // the process dies while the timer is running
+        }
+
+        try (SplitJournal journal = SplitJournal.open(file)) {
+            Timer recovered = new Timer(0, clock, scheduler);
+            journal.recover(recovered);
+            assertEquals(60000, recovered.getDuration());
+            assertTrue(recovered.isStarted());
+            assertFalse(recovered.isPaused());
+            // the 10 seconds before the change are kept, only the wall clock time since the crash is added
+            long remaining = recovered.getRemainingTime();
+            assertTrue("Remaining : " + remaining, remaining <= 50000 && remaining > 45000);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link Stopwatch}.
+ */
+public class StopwatchTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+        }
+    };
+    private final Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+
+    /**
+     * Records every event as a line, times in milliseconds.
+     */
+    private static final class RecordingListener implements Stopwatch.OnSplitListener {
+        private final String name;
+        private final List<String> events;
+
+        RecordingListener(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void onStart(long start) {
+            events.add(name + " start " + start);
+        }
+
+        @Override
+        public void onSplit(long index, long splitTime, long lapTime) {
+            events.add(name + " split " + index + " " + splitTime / 1000000 + " " + lapTime / 1000000);
+        }
+
+        @Override
+        public void onPause(long elapsedTime) {
+            events.add(name + " pause " + elapsedTime / 1000000);
+        }
+
+        @Override
+        public void onResume(long elapsedTime) {
+            events.add(name + " resume " + elapsedTime / 1000000);
+        }
+
+        @Override
+        public void onStop(long elapsedTime) {
+            events.add(name + " stop " + elapsedTime / 1000000);
+        }
+    }
+
+    @Test
+    public void splitsAreMeasuredWithTheTimeSource() {
+        clock.setNanoTime(TimeUnit.DAYS.toNanos(3));
+        stopwatch.start();
+        clock.advance(1234567891, TimeUnit.NANOSECONDS);
+        stopwatch.split();
+        clock.advance(765432109, TimeUnit.NANOSECONDS);
+        stopwatch.split();
+        clock.advance(999999, TimeUnit.NANOSECONDS);
+
+        assertEquals(2000999999, stopwatch.getElapsedTimeNanos());
+        assertEquals(2000, stopwatch.getElapsedTime());
+        List<Split> splits = stopwatch.getSplitBuffer().asList();
+        assertEquals(2, splits.size());
+        Split first = splits.get(0), second = splits.get(1);
+        assertEquals(1234567891, first.getSplitTimeNanos());
+        assertEquals(1234567891, first.getLapTimeNanos());
+        assertEquals(2000000000, second.getSplitTimeNanos());
+        assertEquals(765432109, second.getLapTimeNanos());
+        // the millisecond views truncate the nanosecond times
+        assertEquals(1234, first.getSplitTime());
+        assertEquals(1234, first.getLapTime());
+        assertEquals(2000, second.getSplitTime());
+        assertEquals(765, second.getLapTime());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void getSplitsStillReturnsALinkedList() {
+        stopwatch.start();
+        clock.advance(1, TimeUnit.SECONDS);
+        stopwatch.split();
+        LinkedList<Split> splits = stopwatch.getSplits();
+        assertEquals(1, splits.size());
+        assertEquals(1000, splits.getFirst().getSplitTime());
+        // a copy, so later splits do not show up in it
+        stopwatch.split();
+        assertEquals(1, splits.size());
+        assertEquals(2, stopwatch.getSplits().size());
+    }
+
+    @Test
+    public void splitListenersReceiveEveryEventInOrder() {
+        List<String> events = new ArrayList<>();
+        stopwatch.addOnSplitListener(new RecordingListener("a", events));
+        stopwatch.addOnSplitListener(new RecordingListener("b", events));
+
+        stopwatch.start();
+        long start = stopwatch.getStart();
+        clock.advance(1000, TimeUnit.MILLISECONDS);
+        stopwatch.split();
+        clock.advance(500, TimeUnit.MILLISECONDS);
+        stopwatch.pause();
+        clock.advance(1, TimeUnit.HOURS);
+        // a split while paused is taken at the paused time
+        stopwatch.split();
+        stopwatch.resume();
+        clock.advance(250, TimeUnit.MILLISECONDS);
+        stopwatch.stop();
+
+        assertEquals(Arrays.asList(
+                "a start " + start, "b start " + start,
+                "a split 0 1000 1000", "b split 0 1000 1000",
+                "a pause 1500", "b pause 1500",
+                "a split 1 1500 500", "b split 1 1500 500",
+                "a resume 1500", "b resume 1500",
+                "a stop 1750", "b stop 1750"), events);
+    }
+
+    @Test
+    public void listenersAreCalledAfterTheStopwatchHasChanged() {
+        final List<String> events = new ArrayList<>();
+        stopwatch.addOnSplitListener(new Stopwatch.OnSplitListener() {
+            @Override
+            public void onStart(long start) {
+                events.add("start " + stopwatch.isStarted());
+            }
+
+            @Override
+            public void onSplit(long index, long splitTime, long lapTime) {
+                events.add("split " + stopwatch.getSplitBuffer().size());
+            }
+
+            @Override
+            public void onPause(long elapsedTime) {
+                events.add("pause " + stopwatch.isPaused());
+            }
+
+            @Override
+            public void onResume(long elapsedTime) {
+                events.add("resume " + stopwatch.isPaused());
+            }
+
+            @Override
+            public void onStop(long elapsedTime) {
+                events.add("stop " + stopwatch.isStarted());
+            }
+        });
+        stopwatch.start();
+        stopwatch.split();
+        stopwatch.pause();
+        stopwatch.resume();
+        stopwatch.stop();
+        assertEquals(Arrays.asList("start true", "split 1", "pause true", "resume false", "stop false"), events);
+    }
+
+    @Test
+    public void removedListenersAreNotCalled() {
+        List<String> events = new ArrayList<>();
+        RecordingListener listener = new RecordingListener("a", events);
+        stopwatch.addOnSplitListener(listener);
+        stopwatch.start();
+        assertTrue(stopwatch.removeOnSplitListener(listener));
+        assertFalse(stopwatch.removeOnSplitListener(listener));
+        stopwatch.split();
+        stopwatch.stop();
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void failedTransitionsAreNotReported() {
+        List<String> events = new ArrayList<>();
+        stopwatch.addOnSplitListener(new RecordingListener("a", events));
+        try {
+            stopwatch.split();
+        } catch (IllegalStateException expected) {
+            // not started
+        }
+        stopwatch.start();
+        try {
+            stopwatch.start();
+        } catch (IllegalStateException expected) {
+            // already started
+        }
+        assertEquals(1, events.size());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TickPublisher}, delivering events on the publishing thread.
+ */
+public class TickPublisherTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+        }
+    };
+    private final Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+    private final TickPublisher publisher = new TickPublisher(stopwatch, 100, Runnable::run);
+
+    @Test
+    public void overflowStrategies() {
+        RecordingSubscriber drop = subscribe(TickPublisher.Overflow.DROP);
+        RecordingSubscriber latest = subscribe(TickPublisher.Overflow.LATEST);
+        RecordingSubscriber buffer = subscribe(TickPublisher.Overflow.BUFFER);
+        RecordingSubscriber error = subscribe(TickPublisher.Overflow.ERROR);
+        stopwatch.start();
+        for (int i = 0; i < 3; i++)
+            stopwatch.split();
+
+        // buffers of 2 events, the start and 3 splits have been published without demand
+        drop.subscription.request(10);
+        assertEquals("[START, SPLIT 0]", drop.events.toString());
+        latest.subscription.request(10);
+        assertEquals("[SPLIT 1, SPLIT 2]", latest.events.toString());
+        buffer.subscription.request(10);
+        assertEquals("[START, SPLIT 0, SPLIT 1, SPLIT 2]", buffer.events.toString());
+        assertEquals("[]", error.events.toString());
+        assertTrue(error.error instanceof IllegalStateException);
+        assertEquals(3, publisher.getSubscriberCount());
+    }
+
+    @Test
+    public void demandIsHonoured() {
+        RecordingSubscriber subscriber = subscribe(TickPublisher.Overflow.DROP);
+        subscriber.subscription.request(1);
+        stopwatch.start();
+        stopwatch.split();
+        assertEquals("[START]", subscriber.events.toString());
+        subscriber.subscription.request(1);
+        assertEquals("[START, SPLIT 0]", subscriber.events.toString());
+
+        stopwatch.split();
+        publisher.close();
+        // buffered events are delivered before completing
+        assertEquals(0, subscriber.completions);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals("[START, SPLIT 0, SPLIT 1]", subscriber.events.toString());
+        assertEquals(1, subscriber.completions);
+        stopwatch.split();
+        assertEquals(3, subscriber.events.size());
+    }
+
+    private RecordingSubscriber subscribe(TickPublisher.Overflow overflow) {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber, overflow, 2);
+        return subscriber;
+    }
+
+    private static final class RecordingSubscriber implements TickPublisher.Subscriber<TickPublisher.Event> {
+        private final List<String> events = new ArrayList<>();
+        private TickPublisher.Subscription subscription;
+        private Throwable error;
+        private int completions;
+
+        @Override
+        public void onSubscribe(TickPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TickPublisher.Event item) {
+            events.add(item.getType() == TickPublisher.Event.Type.SPLIT ? "SPLIT " + item.getSplitIndex() : item.getType().toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completions++;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TickScheduler}.
+ */
+public class TickSchedulerTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private final List<Long> ticks = new ArrayList<>();
+    private long requested = -1;
+
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+            requested = clock.nanoTime() + delay;
+        }
+    };
+
+    /**
+     * Dispatches at the requested time plus the given latency, or right away if the requested time has passed.
+     */
+    private void dispatchLate(long latencyMillis) {
+        clock.setNanoTime(Math.max(requested, clock.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        requested = -1;
+        scheduler.dispatch();
+    }
+
+    @Test
+    public void ticksDoNotDrift() {
+        scheduler.schedule(new TickScheduler.Registration(() -> ticks.add(clock.nanoTime())), 100);
+        for (int i = 0; i < 100; i++)
+            dispatchLate(7);
+        // every tick is late by the latency of its own dispatch only
+        for (int i = 0; i < ticks.size(); i++)
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(i * 100 + 7), (long) ticks.get(i));
+    }
+
+    @Test
+    public void registrationsWithTheSamePeriodShareOneWakeUp() {
+        final int[] requests = {0};
+        TickScheduler counting = new TickScheduler(clock) {
+            @Override
+            protected void requestDispatch(long delay) {
+                requests[0]++;
+                requested = clock.nanoTime() + delay;
+            }
+        };
+        final int[] runs = new int[100];
+        for (int i = 0; i < runs.length; i++) {
+            final int index = i;
+            counting.schedule(new TickScheduler.Registration(() -> runs[index]++), 100);
+        }
+        assertEquals(1, requests[0]);
+        for (int i = 0; i < 10; i++) {
+            clock.setNanoTime(requested);
+            counting.dispatch();
+        }
+        // every dispatch runs the whole group and asks for a single wake up
+        for (int run : runs)
+            assertEquals(10, run);
+        assertEquals(11, requests[0]);
+
+        counting.schedule(new TickScheduler.Registration(() -> ticks.add(clock.nanoTime())), 30);
+        assertEquals(12, requests[0]);
+        clock.setNanoTime(requested);
+        counting.dispatch();
+        assertEquals(1, ticks.size());
+        assertEquals(10, runs[0]);
+    }
+
+    @Test
+    public void cancellingDuringDispatchSkipsTheCancelled() {
+        final List<String> order = new ArrayList<>();
+        final TickScheduler.Registration[] registrations = new TickScheduler.Registration[3];
+        registrations[0] = new TickScheduler.Registration(() -> {
+            order.add("a");
+            scheduler.cancel(registrations[1]);
+            scheduler.cancel(registrations[0]);
+        });
+        registrations[1] = new TickScheduler.Registration(() -> order.add("b"));
+        registrations[2] = new TickScheduler.Registration(() -> order.add("c"));
+        for (TickScheduler.Registration registration : registrations)
+            scheduler.schedule(registration, 100);
+
+        dispatchLate(0);
+        dispatchLate(0);
+        assertEquals(Arrays.asList("a", "c", "c"), order);
+        assertFalse(registrations[0].isScheduled());
+        assertFalse(registrations[1].isScheduled());
+        assertTrue(registrations[2].isScheduled());
+
+        // the emptied group is removed and the scheduler does not wake up any more
+        scheduler.cancel(registrations[2]);
+        dispatchLate(0);
+        assertEquals(-1, requested);
+        assertEquals(3, order.size());
+    }
+
+    @Test
+    public void stallsSkipMissedTicks() {
+        scheduler.schedule(new TickScheduler.Registration(() -> ticks.add(clock.nanoTime())), 100);
+        dispatchLate(0);
+        dispatchLate(0);
+        dispatchLate(950);
+        assertEquals(3, ticks.size());
+        // the next tick is aligned to the period instead of catching up
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1200), requested);
+        dispatchLate(0);
+        assertEquals(4, ticks.size());
+    }
+
+    @Test
+    public void unobservedStopwatchesDoNotWakeUp() {
+        Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+        stopwatch.start();
+        clock.advance(5, TimeUnit.SECONDS);
+        assertEquals(-1, requested);
+        assertEquals(5000, stopwatch.getElapsedTime());
+
+        Timer timer = new Timer(10000, clock, scheduler);
+        timer.start();
+        clock.advance(4, TimeUnit.SECONDS);
+        assertEquals(6000, timer.getRemainingTime());
+    }
+
+    @Test
+    public void displaysOnlyWakeUpWhenTheirTextChanges() {
+        final int[] updates = {0};
+        clock.setNanoTime(TimeUnit.HOURS.toNanos(1));
+        Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+        stopwatch.setClockDelay(50);
+        stopwatch.setDisplay((text, start, length) -> updates[0]++);
+        stopwatch.start();
+        clock.advance(1, TimeUnit.HOURS);
+        stopwatch.pause();
+        stopwatch.resume();
+
+        int dispatches = 0;
+        while (clock.nanoTime() < TimeUnit.SECONDS.toNanos(7210)) {
+            dispatchLate(0);
+            dispatches++;
+        }
+        // one update per second once past the hour, where seconds are the smallest unit shown
+        assertEquals(11, updates[0]);
+        assertEquals(updates[0], dispatches);
+    }
+
+    @Test
+    public void listenersTickAtTheirOwnPeriods() {
+        final int[] counts = new int[3];
+        Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+        stopwatch.addOnTickListener(s -> counts[0]++, 33);
+        stopwatch.addOnTickListener(s -> counts[1]++, 1000);
+        stopwatch.addOnTickListener(s -> counts[2]++, 10000);
+        stopwatch.start();
+
+        int dispatches = 0;
+        while (clock.nanoTime() < TimeUnit.SECONDS.toNanos(20)) {
+            dispatchLate(0);
+            dispatches++;
+        }
+        assertEquals(606, counts[0]);
+        assertEquals(20, counts[1]);
+        assertEquals(2, counts[2]);
+        // one wake up per distinct deadline, the 10 s deadlines coincide with the 1 s ones
+        assertEquals(606 + 20, dispatches);
+    }
+
+    @Test
+    public void statsMeasureLateAndSkippedTicks() {
+        Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+        TickStats stats = new TickStats();
+        stopwatch.setTickStats(stats);
+        stopwatch.setOnTickListener(s -> clock.advance(3, TimeUnit.MILLISECONDS));
+        stopwatch.start();
+        for (int i = 0; i < 3; i++)
+            dispatchLate(7);
+        dispatchLate(250);
+
+        assertEquals(4, stats.getTickCount());
+        assertEquals(1, stats.getLateTickCount());
+        assertEquals(2, stats.getSkippedTickCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(7), stats.getLateness().getMin());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), stats.getLateness().getMax());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), stats.getDispatchTime().getMean(), 0);
+    }
+
+    @Test
+    public void statsMeasureDisplayUpdatesAndCompletions() {
+        TickStats stats = new TickStats();
+        Timer timer = new Timer(3000, clock, scheduler);
+        timer.setTickStats(stats);
+        timer.setClockDelay(1000);
+        timer.setDisplay((text, start, length) -> {
+        });
+        timer.start();
+        while (timer.isStarted())
+            dispatchLate(5);
+
+        // one update per second of the display, then the completion
+        assertEquals(4, stats.getTickCount());
+        assertEquals(0, stats.getSkippedTickCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), stats.getLateness().getMin());
+        // timeouts wake up on the next tick of the timing wheel, up to a millisecond after their deadline
+        assertTrue(stats.getLateness().getMax() <= TimeUnit.MILLISECONDS.toNanos(6));
+    }
+
+    @Test
+    public void timersCompleteAtTheirDeadline() {
+        final long[] completed = {-1};
+        Timer timer = new Timer(2500, clock, scheduler);
+        timer.setClockDelay(1000);
+        timer.setOnTickListener(new Timer.OnTickListener() {
+            @Override
+            public void onTick(Timer timer) {
+            }
+
+            @Override
+            public void onComplete(Timer timer) {
+                completed[0] = clock.nanoTime();
+            }
+        });
+        timer.start();
+        dispatchLate(0);
+        dispatchLate(0);
+        dispatchLate(0);
+        // paused for 300ms after 2300ms, so it completes 200ms after resuming
+        clock.advance(300, TimeUnit.MILLISECONDS);
+        timer.pause();
+        clock.advance(300, TimeUnit.MILLISECONDS);
+        timer.resume();
+        // the scheduler may wake up early to move the deadline down the wheel, but never late
+        while (completed[0] < 0)
+            dispatchLate(0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2800), completed[0]);
+        assertEquals(false, timer.isStarted());
+    }
+
+    @Test
+    public void callsFromOtherThreadsRunOnTheTickThread() {
+        ExecutorTickScheduler executorScheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+        try {
+            final Thread[] tickThread = {null};
+            final boolean[] wrongThread = {false};
+            Stopwatch stopwatch = new Stopwatch(TimeSource.SYSTEM, executorScheduler);
+            stopwatch.setClockDelay(0);
+            stopwatch.setOnTickListener(s -> tickThread[0] = Thread.currentThread());
+            stopwatch.addOnSplitListener(new Stopwatch.OnSplitListener() {
+                @Override
+                public void onStart(long start) {
+                }
+
+                @Override
+                public void onSplit(long index, long splitTime, long lapTime) {
+                    if (tickThread[0] != null && Thread.currentThread() != tickThread[0])
+                        wrongThread[0] = true;
+                }
+
+                @Override
+                public void onPause(long elapsedTime) {
+                }
+
+                @Override
+                public void onResume(long elapsedTime) {
+                }
+
+                @Override
+                public void onStop(long elapsedTime) {
+                }
+            });
+            stopwatch.start();
+            for (int i = 0; i < 20000; i++)
+                stopwatch.split();
+            stopwatch.stop();
+
+            // ticks and splits never interleave, so the laps add up to the last split exactly
+            SplitBuffer splits = stopwatch.getSplitBuffer();
+            long laps = 0;
+            for (int i = 0; i < splits.size(); i++)
+                laps += splits.getLapTimeNanos(i);
+            assertEquals(splits.getSplitTimeNanos(splits.size() - 1), laps);
+            assertEquals(false, wrongThread[0]);
+        } finally {
+            executorScheduler.getExecutor().shutdownNow();
+        }
+    }
+
+    @Test
+    public void callsFromTheExecutorRunBeforeTheFirstTick() throws Exception {
+        ExecutorTickScheduler executorScheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+        try {
+            final Stopwatch stopwatch = new Stopwatch(TimeSource.SYSTEM, executorScheduler);
+            // would wait forever for itself if the executor's thread was not known yet
+            executorScheduler.getExecutor().submit(stopwatch::start).get(5, TimeUnit.SECONDS);
+            assertTrue(stopwatch.isStarted());
+        } finally {
+            executorScheduler.getExecutor().shutdownNow();
+        }
+    }
+
+    @Test
+    public void elapsedTimeIsNeverTorn() throws InterruptedException {
+        ExecutorTickScheduler executorScheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+        try {
+            final Stopwatch stopwatch = new Stopwatch(TimeSource.SYSTEM, executorScheduler);
+            stopwatch.setClockDelay(0);
+            stopwatch.setOnTickListener(s -> {
+            });
+            final long origin = System.nanoTime();
+            final boolean[] torn = {false};
+            final AtomicBoolean done = new AtomicBoolean();
+            stopwatch.start();
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    long elapsed = stopwatch.getElapsedTimeNanos();
+                    if (elapsed < 0 || elapsed > System.nanoTime() - origin)
+                        torn[0] = true;
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 5000; i++) {
+                stopwatch.pause();
+                stopwatch.resume();
+            }
+            done.set(true);
+            reader.join();
+            assertEquals(false, torn[0]);
+        } finally {
+            executorScheduler.getExecutor().shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for {@link TimeFormatter}.
+ */
+public class TimeFormatterTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Test
+    public void format_secondsOnly() {
+        TimeFormatter formatter = new TimeFormatter();
+        assertEquals("00.00", formatter.toString());
+        assertEquals("00.00", formatter.format(9).toString());
+        assertEquals("05.43", formatter.format(5432).toString());
+        assertEquals("59.99", formatter.format(59999).toString());
+    }
+
+    @Test
+    public void format_minutes() {
+        TimeFormatter formatter = new TimeFormatter();
+        assertEquals("01:00.00", formatter.format(60000).toString());
+        assertEquals("12:34.56", formatter.format(12 * 60000 + 34560).toString());
+        assertEquals("59:59.99", formatter.format(HOUR - 1).toString());
+    }
+
+    @Test
+    public void format_hours() {
+        TimeFormatter formatter = new TimeFormatter();
+        assertEquals("1:00:00", formatter.format(HOUR).toString());
+        assertEquals("1:00:05", formatter.format(HOUR + 5000).toString());
+        assertEquals("123:45:06", formatter.format(123 * HOUR + 45 * 60000 + 6999).toString());
+        assertEquals("2562047788015:12:55", formatter.format(Long.MAX_VALUE).toString());
+    }
+
+    @Test
+    public void format_negativeIsZero() {
+        assertEquals("00.00", new TimeFormatter().format(-1500).toString());
+    }
+
+    @Test
+    public void format_matchesCharSequence() {
+        TimeFormatter formatter = new TimeFormatter().format(12 * 60000 + 34560);
+        assertEquals(8, formatter.length());
+        assertEquals(':', formatter.charAt(2));
+        assertEquals("34", formatter.subSequence(3, 5).toString());
+        assertEquals("12:34.56", new String(formatter.getBuffer(), 0, formatter.length()));
+    }
+
+    @Test
+    public void resolution_matchesFormat() {
+        TimeFormatter formatter = new TimeFormatter();
+        for (long time = HOUR - 3000; time < HOUR + 3000; time += 7) {
+            long resolution = TimeFormatter.getResolution(time);
+            String text = formatter.format(time).toString();
+            assertEquals(text, formatter.format(time - time % resolution).toString());
+            assertEquals(text, formatter.format(time - time % resolution + resolution - 1).toString());
+        }
+    }
+
+    @Test
+    public void binding_skipsUnchangedText() {
+        final int[] updates = {0};
+        TimeDisplay display = (text, start, length) -> updates[0]++;
+        DisplayBinding binding = new DisplayBinding();
+        // 50 ms ticks over two minutes past the hour, where only seconds are shown
+        for (long time = HOUR; time < HOUR + 120000; time += 50)
+            binding.render(display, time);
+        assertEquals(120, updates[0]);
+    }
+
+    @Test
+    public void format_doesNotAllocate() {
+        TimeFormatter formatter = new TimeFormatter();
+        long[] checksum = {0};
+        long allocated = allocatedBytes(() -> checksum[0] += formatAll(formatter, checksum[0]));
+        assertEquals("Bytes allocated while formatting (checksum " + checksum[0] + ")", 0, allocated);
+    }
+
+    @Test
+    public void tick_doesNotAllocate() {
+        ManualTimeSource clock = new ManualTimeSource();
+        long[] requested = {-1};
+        TickScheduler scheduler = new TickScheduler(clock) {
+            @Override
+            protected void requestDispatch(long delay) {
+                requested[0] = clock.nanoTime() + delay;
+            }
+        };
+        char[] shown = new char[32];
+        TimeDisplay display = (text, start, length) -> System.arraycopy(text, start, shown, 0, length);
+
+        Stopwatch stopwatch = new Stopwatch(clock, scheduler);
+        stopwatch.setClockDelay(10);
+        stopwatch.setDisplay(display);
+        stopwatch.setOnTickListener(s -> shown[31]++);
+        Timer timer = new Timer(10 * HOUR, clock, scheduler);
+        timer.setClockDelay(10);
+        timer.setDisplay(display);
+        timer.setOnTickListener(new Timer.OnTickListener() {
+            @Override
+            public void onTick(Timer timer) {
+                shown[30]++;
+            }
+
+            @Override
+            public void onComplete(Timer timer) {
+            }
+        });
+        stopwatch.start();
+        timer.start();
+
+        // 100,000 ticks of both, from seconds through minutes and into hours
+        long allocated = allocatedBytes(() -> {
+            for (int i = 0; i < 100000; i++) {
+                clock.setNanoTime(requested[0]);
+                requested[0] = -1;
+                scheduler.dispatch();
+            }
+        });
+        assertEquals("Bytes allocated while ticking (shown " + new String(shown, 0, 8) + ")", 0, allocated);
+    }
+
+    /**
+     * Measures the bytes allocated by the current thread while running a task, after running it once to warm it up.
+     */
+    private static long allocatedBytes(Runnable task) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+        task.run();
+
+        // the measurement itself may allocate, so measure that overhead first
+        long before = bean.getThreadAllocatedBytes(thread);
+        long overhead = bean.getThreadAllocatedBytes(thread) - before;
+
+        // the first rounds may allocate while the JIT replaces the loop, so keep the best of a few
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 3 && allocated > 0; round++) {
+            before = bean.getThreadAllocatedBytes(thread);
+            task.run();
+            allocated = Math.min(allocated, bean.getThreadAllocatedBytes(thread) - before - overhead);
+        }
+        return allocated;
+    }
+
+    /**
+     * Formats a range of values covering all three output formats.
+     */
+    private static long formatAll(TimeFormatter formatter, long seed) {
+        long checksum = seed;
+        for (long time = 0; time < 3 * HOUR; time += 777) {
+            formatter.format(time);
+            checksum += formatter.length() + formatter.getBuffer()[formatter.length() - 1];
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TimerPool}.
+ */
+public class TimerPoolTest {
+
+    private final ManualTimeSource clock = new ManualTimeSource();
+    private long requested = -1;
+
+    private final TickScheduler scheduler = new TickScheduler(clock) {
+        @Override
+        protected void requestDispatch(long delay) {
+            requested = clock.nanoTime() + delay;
+        }
+    };
+
+    @Test
+    public void timersCompleteAtTheirDeadlines() {
+        TimerPool pool = new TimerPool(scheduler);
+        final long[] completed = new long[1000];
+        final int[] count = {0};
+        pool.setOnCompleteListener((p, timer) -> {
+            completed[timer] = clock.nanoTime();
+            count[0]++;
+        });
+        Random random = new Random(7);
+        int[] timers = new int[1000];
+        for (int i = 0; i < timers.length; i++)
+            timers[i] = pool.create(1 + random.nextInt(10000));
+        pool.startAll(timers);
+
+        // pause every third timer for a second, cancel every seventh
+        clock.advance(500, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < timers.length; i += 3) {
+            if (pool.getRemainingTime(timers[i]) > 0 && !pool.isFinished(timers[i]))
+                pool.pause(timers[i]);
+        }
+        for (int i = 0; i < timers.length; i += 7)
+            pool.cancel(timers[i]);
+        clock.advance(1, TimeUnit.SECONDS);
+        pool.resumeAll();
+
+        int dispatches = 0;
+        while (requested >= 0) {
+            clock.setNanoTime(Math.max(requested, clock.nanoTime()));
+            requested = -1;
+            scheduler.dispatch();
+            dispatches++;
+        }
+        assertEquals(0, pool.getRunningCount());
+        int expected = 0;
+        for (int i = 0; i < timers.length; i++) {
+            int timer = timers[i];
+            if (i % 7 == 0) {
+                assertFalse(pool.isStarted(timer));
+                assertFalse(pool.isFinished(timer));
+                continue;
+            }
+            expected++;
+            assertTrue(pool.isFinished(timer));
+            long duration = TimeUnit.MILLISECONDS.toNanos(pool.getDuration(timer));
+            if (i % 3 == 0 && duration > TimeUnit.MILLISECONDS.toNanos(500))
+                duration += TimeUnit.SECONDS.toNanos(1);
+            // nothing is dispatched before resuming, and deadlines are rounded up to the millisecond of the scheduler
+            long lateness = completed[timer] - Math.max(duration, TimeUnit.MILLISECONDS.toNanos(1500));
+            assertTrue(lateness >= 0 && lateness < TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(expected, count[0]);
+        // at most one wake up per distinct deadline
+        assertTrue(dispatches <= expected);
+    }
+
+    @Test
+    public void handlesAreReused() {
+        TimerPool pool = new TimerPool(scheduler);
+        int first = pool.create(100);
+        int second = pool.create(200);
+        pool.start(first);
+        pool.release(first);
+        assertEquals(1, pool.size());
+        assertEquals(0, pool.getRunningCount());
+        assertEquals(first, pool.create(300));
+        assertEquals(300, pool.getRemainingTime(first));
+        pool.start(second);
+        clock.advance(150, TimeUnit.MILLISECONDS);
+        assertEquals(50, pool.getRemainingTime(second));
+    }
+
+    @Test
+    public void runsOnTheExecutorOfItsScheduler() throws Exception {
+        ExecutorTickScheduler executorScheduler = ExecutorTickScheduler.newSingleThreadScheduler();
+        try {
+            final TimerPool pool = new TimerPool(executorScheduler);
+            final CountDownLatch completed = new CountDownLatch(1);
+            pool.setOnCompleteListener((p, timer) -> completed.countDown());
+            // before any tick has run, the executor is already known to be the dispatch thread
+            executorScheduler.getExecutor().submit(() -> pool.start(pool.create(10))).get(5, TimeUnit.SECONDS);
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            executorScheduler.getExecutor().shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsChangesOffTheSchedulerThread() {
+        TimerPool pool = new TimerPool(new TickScheduler(clock) {
+            @Override
+            protected void requestDispatch(long delay) {
+            }
+
+            @Override
+            protected boolean isDispatchThread() {
+                return false;
+            }
+        });
+        pool.create(100);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link TimingRegistry}.
+ */
+public class TimingRegistryTest {
+
+    private final TimingRegistry registry = new TimingRegistry(new ManualTimeSource(), 4);
+
+    @Test
+    public void threadsRecordWithoutLosingTimes() throws InterruptedException {
+        final TimingRegistry.Timing timing = registry.get("work");
+        assertSame(timing, registry.get("work"));
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= 10000; i++)
+                        timing.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        TimingRegistry.Snapshot snapshot = timing.snapshotAndReset();
+        assertEquals(80000, snapshot.getCount());
+        assertEquals(8 * 10000L * 10001 / 2, snapshot.getTotalTimeNanos());
+        assertEquals(1, snapshot.getMinTimeNanos());
+        assertEquals(10000, snapshot.getMaxTimeNanos());
+        assertEquals(0, timing.snapshot().getCount());
+        assertEquals(0, timing.snapshot().getMinTimeNanos());
+    }
+
+    @Test
+    public void snapshotsAreSortedByName() {
+        registry.get("b").record(5);
+        registry.get("a").record(3);
+        registry.get("a").record(7);
+        List<TimingRegistry.Snapshot> snapshots = registry.snapshot();
+        assertEquals(2, snapshots.size());
+        assertEquals("a", snapshots.get(0).getName());
+        assertEquals(5, snapshots.get(0).getMeanTimeNanos(), 0);
+        assertEquals(1, snapshots.get(1).getCount());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link TimingWheel}.
+ */
+public class TimingWheelTest {
+
+    private static final long MS = 1000000;
+
+    @Test
+    public void advance_expiresOnlyDueTimeouts() {
+        TimingWheel wheel = new TimingWheel(MS, 0);
+        int[] fired = new int[2];
+        TimingWheel.Timeout first = new TimingWheel.Timeout(() -> fired[0]++);
+        TimingWheel.Timeout second = new TimingWheel.Timeout(() -> fired[1]++);
+        wheel.schedule(first, 10 * MS);
+        wheel.schedule(second, 5000 * MS);
+
+        assertEquals(0, wheel.advance(9 * MS));
+        assertEquals(1, wheel.advance(10 * MS));
+        assertEquals(1, fired[0]);
+        assertFalse(first.isScheduled());
+        assertTrue(second.isScheduled());
+
+        assertEquals(0, wheel.advance(4999 * MS));
+        assertEquals(1, wheel.advance(6000 * MS));
+        assertEquals(1, fired[1]);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancel_preventsExpiry() {
+        TimingWheel wheel = new TimingWheel(MS, 0);
+        int[] fired = new int[1];
+        TimingWheel.Timeout timeout = new TimingWheel.Timeout(() -> fired[0]++);
+        wheel.schedule(timeout, 100 * MS);
+        wheel.cancel(timeout);
+        wheel.advance(200 * MS);
+        assertEquals(0, fired[0]);
+
+        wheel.schedule(timeout, 300 * MS);
+        wheel.schedule(timeout, 400 * MS);
+        wheel.advance(399 * MS);
+        assertEquals(0, fired[0]);
+        wheel.advance(400 * MS);
+        assertEquals(1, fired[0]);
+    }
+
+    @Test
+    public void advance_matchesDeadlinesAcrossAllLevels() {
+        Random random = new Random(42);
+        TimingWheel wheel = new TimingWheel(1, 0);
+        int count = 5000;
+        long[] deadlines = new long[count];
+        long[] expiredAt = new long[count];
+        long[] now = new long[1];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            // spread deadlines over every level of the wheel and past its range
+            deadlines[i] = 1 + (random.nextLong() >>> (1 + random.nextInt(62)));
+            TimingWheel.Timeout timeout = new TimingWheel.Timeout(() -> expiredAt[index] = now[0]);
+            wheel.schedule(timeout, deadlines[i]);
+        }
+
+        while (wheel.size() > 0) {
+            now[0] += 1 + (random.nextLong() >>> (1 + random.nextInt(62)));
+            wheel.advance(now[0]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            assertTrue("Timeout " + i + " expired early", expiredAt[i] >= deadlines[i]);
+        }
+    }
+
+    @Test
+    public void nextDeadline_isEarliestTimeout() {
+        Random random = new Random(7);
+        TimingWheel wheel = new TimingWheel(1, 0);
+        TreeSet<Long> pending = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + (random.nextLong() >>> (28 + random.nextInt(35)));
+            if (pending.add(deadline))
+                wheel.schedule(new TimingWheel.Timeout(() -> {
+                }), deadline);
+        }
+        while (!pending.isEmpty()) {
+            long next = wheel.nextDeadline();
+            assertEquals((long) pending.pollFirst(), next);
+            assertEquals(1, wheel.advance(next));
+        }
+        assertEquals(Long.MAX_VALUE, wheel.nextDeadline());
+    }
+
+    @Test
+    public void advance_runsEveryTickOnTime() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        int count = 1 << 14;
+        long[] expiredAt = new long[count];
+        long[] now = new long[1];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            wheel.schedule(new TimingWheel.Timeout(() -> expiredAt[index] = now[0]), i * 37L);
+        }
+        for (now[0] = 0; wheel.size() > 0; now[0]++)
+            wheel.advance(now[0]);
+        for (int i = 1; i < count; i++)
+            assertEquals(i * 37L, expiredAt[i]);
+    }
+}
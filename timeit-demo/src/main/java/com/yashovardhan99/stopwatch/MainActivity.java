@@ -23,40 +23,65 @@ import android.view.View;
 import android.widget.ScrollView;
 import android.widget.TextView;
 
-import com.yashovardhan99.timeit.Split;
+import com.yashovardhan99.timeit.AndroidStopwatch;
 import com.yashovardhan99.timeit.Stopwatch;
 
-import java.util.LinkedList;
-
 import androidx.appcompat.app.AppCompatActivity;
 
 public class MainActivity extends AppCompatActivity implements View.OnClickListener, Stopwatch.OnTickListener {
 
     TextView time, splitLog;
-    Stopwatch stopwatch;
+    AndroidStopwatch stopwatch;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
-        stopwatch = new Stopwatch();
+        stopwatch = new AndroidStopwatch();
         stopwatch.setDebugMode(true);
         time = findViewById(R.id.time);
         stopwatch.setTextView(time);
         splitLog = findViewById(R.id.split_log);
         stopwatch.setOnTickListener(this);
+        stopwatch.addOnSplitListener(splitListener);
         stopwatch.setClockDelay(50);
     }
 
+    /**
+     * Appends a row to the split log for every split instead of rebuilding the whole log.
+     */
+    private final Stopwatch.OnSplitListener splitListener = new Stopwatch.OnSplitListener() {
+        @Override
+        public void onStart(long start) {
+            splitLog.setText(null);
+        }
+
+        @Override
+        public void onSplit(long index, long splitTime, long lapTime) {
+            splitLog.append(lapTime / 1000000 + " <- Lap " + index + " Split -> " + splitTime / 1000000 + "\n");
+            ((ScrollView) (findViewById(R.id.split_scroller))).fullScroll(View.FOCUS_DOWN);
+        }
+
+        @Override
+        public void onPause(long elapsedTime) {
+        }
+
+        @Override
+        public void onResume(long elapsedTime) {
+        }
+
+        @Override
+        public void onStop(long elapsedTime) {
+        }
+    };
+
     @Override
     public void onClick(View v) {
         Log.d("ONCLICK", v.toString());
         switch (v.getId()) {
             case R.id.start:
-                if (!stopwatch.isStarted()) {
+                if (!stopwatch.isStarted())
                     stopwatch.start();
-                    splitLog.setText(null);
-                }
                 break;
             case R.id.stop:
                 if (stopwatch.isStarted())
@@ -73,15 +98,6 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             case R.id.split:
                 if (stopwatch.isStarted())
                     stopwatch.split();
-                StringBuilder stringBuilder = new StringBuilder();
-                LinkedList<Split> splits = stopwatch.getSplits();
-                for (Split split : splits) {
-                    long lapTime = split.getLapTime();
-                    long splitTime = split.getSplitTime();
-                    stringBuilder.append(lapTime).append(" <- Lap ").append(splits.indexOf(split)).append(" Split -> ").append(splitTime).append("\n");
-                }
-                splitLog.setText(stringBuilder.toString());
-                ((ScrollView) (findViewById(R.id.split_scroller))).fullScroll(View.FOCUS_DOWN);
                 break;
             case R.id.switch_to_timer:
                 Intent intent = new Intent(this,TimerDemo.class);
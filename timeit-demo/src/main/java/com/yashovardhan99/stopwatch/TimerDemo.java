@@ -20,19 +20,20 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 
+import com.yashovardhan99.timeit.AndroidTimer;
 import com.yashovardhan99.timeit.Timer;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 public class TimerDemo extends AppCompatActivity implements Timer.OnTickListener {
 
-    Timer timer;
+    AndroidTimer timer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_timer_demo);
-        timer = new Timer(2 * 60 * 1000); //setting demo timer for 2 minutes
+        timer = new AndroidTimer(2 * 60 * 1000); //setting demo timer for 2 minutes
         timer.setTextView(findViewById(R.id.time));
         timer.setOnTickListener(this);
     }
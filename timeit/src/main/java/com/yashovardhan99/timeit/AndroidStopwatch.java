@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.yashovardhan99.timeit;
+
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A stopwatch for Android. It measures time with {@link ElapsedRealtimeTimeSource}, ticks on the looper of the thread which creates it and can update a TextView directly.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Stopwatch
+ * @see HandlerTickScheduler#myScheduler()
+ * @since 2.0
+ */
+public class AndroidStopwatch extends Stopwatch {
+
+    /**
+     * Creates a stopwatch which ticks on the current thread. The current thread must have a looper.
+     *
+     * @since 2.0
+     */
+    public AndroidStopwatch() {
+        this(ElapsedRealtimeTimeSource.INSTANCE);
+    }
+
+    /**
+     * Creates a stopwatch which measures time with the given time source and ticks on the current thread.
+     *
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @since 2.0
+     */
+    public AndroidStopwatch(TimeSource timeSource) {
+        super(timeSource, HandlerTickScheduler.myScheduler());
+    }
+
+    /**
+     * Creates a stopwatch which measures time with the given time source and ticks on the given scheduler.
+     * With {@link HandlerTickScheduler#backgroundScheduler()}, listeners and formatting run on a background thread and a text view set with {@link #setTextView(TextView)} is updated at most once per frame.
+     * The stopwatch can still be controlled from the main thread : its methods run on the scheduler's thread and wait for it to complete.
+     *
+     * @param timeSource the monotonic clock used to measure elapsed time
+     * @param scheduler  the scheduler which drives the clock of this stopwatch
+     * @since 2.0
+     */
+    public AndroidStopwatch(TimeSource timeSource, TickScheduler scheduler) {
+        super(timeSource, scheduler);
+    }
+
+    /**
+     * Allows you to set a textView where the stopwatch time is displayed.
+     * If not provided, or set to null, you need to manually display the time.
+     * If the stopwatch does not tick on the main thread, the text view is updated through a {@link FrameTextDisplay}.
+     * Must be called on the main thread.
+     *
+     * @param textView the textView where you want to display the stopwatch time. Can be null.
+     * @since 1.0
+     */
+    public void setTextView(@Nullable TextView textView) {
+        setDisplay(FrameTextDisplay.of(textView, getTickScheduler()));
+    }
+}
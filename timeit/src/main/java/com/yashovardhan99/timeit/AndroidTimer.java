@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.yashovardhan99.timeit;
+
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A timer for Android. It measures time with {@link ElapsedRealtimeTimeSource}, ticks on the looper of the thread which creates it and can update a TextView directly.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Timer
+ * @see HandlerTickScheduler#myScheduler()
+ * @since 2.0
+ */
+public class AndroidTimer extends Timer {
+
+    /**
+     * Creates a timer which ticks on the current thread. Duration must be set before it is started.
+     * The current thread must have a looper.
+     *
+     * @see #setDuration(long)
+     * @since 2.0
+     */
+    public AndroidTimer() {
+        this(0);
+    }
+
+    /**
+     * Creates a timer with the specified duration which ticks on the current thread.
+     * The current thread must have a looper.
+     *
+     * @param duration the duration for which the timer should run in milliseconds
+     * @since 2.0
+     */
+    public AndroidTimer(long duration) {
+        super(duration, ElapsedRealtimeTimeSource.INSTANCE, HandlerTickScheduler.myScheduler());
+    }
+
+    /**
+     * Creates a timer with the specified duration which ticks on the given scheduler.
+     * With {@link HandlerTickScheduler#backgroundScheduler()}, listeners and formatting run on a background thread and a text view set with {@link #setTextView(TextView)} is updated at most once per frame.
+     * The timer can still be controlled from the main thread : its methods run on the scheduler's thread and wait for it to complete.
+     *
+     * @param duration  the duration for which the timer should run in milliseconds
+     * @param scheduler the scheduler which drives the clock of this timer
+     * @since 2.0
+     */
+    public AndroidTimer(long duration, TickScheduler scheduler) {
+        super(duration, ElapsedRealtimeTimeSource.INSTANCE, scheduler);
+    }
+
+    /**
+     * Used to set the textView which is auto-updated on clock ticks whenever the shown text changes.
+     *
+     * If the timer does not tick on the main thread, the text view is updated through a {@link FrameTextDisplay}.
+     * Must be called on the main thread.
+     *
+     * @param textView the textView to update.
+     * @since 1.2
+     */
+    public void setTextView(@Nullable TextView textView) {
+        setDisplay(FrameTextDisplay.of(textView, getStopwatch().getTickScheduler()));
+    }
+}
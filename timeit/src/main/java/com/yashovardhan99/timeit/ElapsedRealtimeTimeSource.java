@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import android.os.SystemClock;
+
+/**
+ * A time source backed by {@link SystemClock#elapsedRealtimeNanos()}.
+ * This clock is monotonic and keeps counting while the device is in deep sleep, which makes it the default for {@link AndroidStopwatch} and {@link AndroidTimer}.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TimeSource
+ * @since 2.0
+ */
+public final class ElapsedRealtimeTimeSource implements TimeSource {
+
+    /**
+     * The shared instance of this time source.
+     *
+     * @since 2.0
+     */
+    public static final ElapsedRealtimeTimeSource INSTANCE = new ElapsedRealtimeTimeSource();
+
+    private ElapsedRealtimeTimeSource() {
+    }
+
+    @Override
+    public long nanoTime() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.yashovardhan99.timeit;
+
+import android.os.Looper;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+/**
+ * A display which can be updated from any thread and shows the latest text on a TextView once per frame.
+ * The background thread only copies the formatted text into a pending buffer, and a single frame callback is posted to the main thread until that frame has run.
+ * Ticks which happen between two frames therefore cost the main thread nothing, and every frame costs it a single setText.
+ * <p>
+ * This is used by {@link AndroidStopwatch} and {@link AndroidTimer} when they tick on a background thread, such as the one of {@link HandlerTickScheduler#backgroundScheduler()}.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see Choreographer
+ * @since 2.0
+ */
+public class FrameTextDisplay implements TimeDisplay {
+
+    private final TextView textView;
+    private final Choreographer choreographer;
+    private final Choreographer.FrameCallback frameCallback = this::doFrame;
+    /**
+     * Written by the ticking thread, guarded by this.
+     */
+    private char[] pending;
+    private int pendingLength;
+    private boolean posted;
+    /**
+     * Only used on the main thread. The text view keeps a reference to it, so it is only changed right before the next setText.
+     */
+    private char[] shown;
+
+    /**
+     * Creates a display for a text view. Must be called on the main thread.
+     *
+     * @param textView the text view to update
+     * @since 2.0
+     */
+    public FrameTextDisplay(TextView textView) {
+        this.textView = textView;
+        choreographer = Choreographer.getInstance();
+        pending = new char[16];
+        pendingLength = 0;
+        posted = false;
+        shown = new char[16];
+    }
+
+    /**
+     * Returns a display for a text view updated by the given scheduler : the text view itself if the scheduler ticks on the main thread, a frame display otherwise.
+     *
+     * @param textView  the text view to update, or null
+     * @param scheduler the scheduler of the stopwatch or timer updating it
+     * @return the display to set, null if the text view is null
+     * @since 2.0
+     */
+    static TimeDisplay of(TextView textView, TickScheduler scheduler) {
+        if (textView == null)
+            return null;
+        if (scheduler instanceof HandlerTickScheduler && ((HandlerTickScheduler) scheduler).getLooper() == Looper.getMainLooper())
+            return textView::setText;
+        return new FrameTextDisplay(textView);
+    }
+
+    @Override
+    public synchronized void setText(char[] text, int start, int length) {
+        if (pending.length < length)
+            pending = new char[length];
+        System.arraycopy(text, start, pending, 0, length);
+        pendingLength = length;
+        if (!posted) {
+            posted = true;
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Shows the latest pending text, on the main thread.
+     */
+    private void doFrame(long frameTimeNanos) {
+        int length;
+        synchronized (this) {
+            length = pendingLength;
+            if (shown.length < length)
+                shown = new char[pending.length];
+            System.arraycopy(pending, 0, shown, 0, length);
+            posted = false;
+        }
+        textView.setText(shown, 0, length);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2018  Yashovardhan Dhanania
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.yashovardhan99.timeit;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * A tick scheduler driven by an Android {@link Handler}. All ticks are dispatched on the thread of the handler's looper with a single pending message.
+ * Stopwatches and timers on this scheduler can be controlled from any thread : calls made on another thread are posted to the handler and wait for it to run them.
+ * <p>
+ * Created by Yashovardhan99 on 18/10/26 as a part of TimeIt.
+ *
+ * @author Yashovardhan Dhanania
+ * @see TickScheduler
+ * @since 2.0
+ */
+public class HandlerTickScheduler extends TickScheduler {
+
+    private static final ThreadLocal<HandlerTickScheduler> schedulers = new ThreadLocal<>();
+    private static HandlerTickScheduler backgroundScheduler;
+
+    private final Handler handler;
+    private final Runnable dispatcher = this::dispatch;
+
+    /**
+     * Creates a scheduler which posts its ticks to the given handler, measuring time with {@link ElapsedRealtimeTimeSource}.
+     *
+     * @param handler the handler whose thread all ticks are dispatched on
+     * @see #myScheduler()
+     * @since 2.0
+     */
+    public HandlerTickScheduler(Handler handler) {
+        this(handler, ElapsedRealtimeTimeSource.INSTANCE);
+    }
+
+    /**
+     * Creates a scheduler which posts its ticks to the given handler.
+     *
+     * @param handler    the handler whose thread all ticks are dispatched on
+     * @param timeSource the clock used for tick and timer deadlines
+     * @since 2.0
+     */
+    public HandlerTickScheduler(Handler handler, TimeSource timeSource) {
+        super(timeSource);
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the scheduler shared by everything created on the current thread, creating it if needed.
+     * The current thread must have a looper.
+     *
+     * @return the shared scheduler for the current thread's looper
+     * @see Looper#myLooper()
+     * @since 2.0
+     */
+    public static HandlerTickScheduler myScheduler() {
+        HandlerTickScheduler scheduler = schedulers.get();
+        if (scheduler == null) {
+            scheduler = new HandlerTickScheduler(new Handler());
+            schedulers.set(scheduler);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Returns a scheduler shared by the whole process which ticks on its own background thread, starting the thread if needed.
+     * Ticks, listeners and formatting then run off the main thread, which only has to show the final text.
+     * Displays of stopwatches and timers on this scheduler must be thread safe, such as a {@link FrameTextDisplay}.
+     *
+     * @return the shared background scheduler
+     * @see AndroidStopwatch#AndroidStopwatch(TimeSource, TickScheduler)
+     * @since 2.0
+     */
+    public static synchronized HandlerTickScheduler backgroundScheduler() {
+        if (backgroundScheduler == null) {
+            HandlerThread thread = new HandlerThread("TimeIt");
+            thread.start();
+            backgroundScheduler = new HandlerTickScheduler(new Handler(thread.getLooper()));
+        }
+        return backgroundScheduler;
+    }
+
+    /**
+     * Returns the looper of the thread all ticks are dispatched on.
+     *
+     * @return the looper of the handler of this scheduler
+     * @since 2.0
+     */
+    public Looper getLooper() {
+        return handler.getLooper();
+    }
+
+    @Override
+    protected boolean isDispatchThread() {
+        return Looper.myLooper() == handler.getLooper();
+    }
+
+    @Override
+    protected void post(Runnable task) {
+        // a quitting looper drops the task, and the caller would then wait for it forever
+        if (!handler.post(task))
+            throw new IllegalStateException("The looper of this scheduler has quit");
+    }
+
+    @Override
+    protected void requestDispatch(long delay) {
+        handler.removeCallbacks(dispatcher);
+        // post at the absolute time of the deadline, rounded up so that a tick is never dispatched before it
+        handler.postAtTime(dispatcher, SystemClock.uptimeMillis() + (delay + 999999) / 1000000);
+    }
+}